@@ -0,0 +1,48 @@
+package bot;
+
+import map.GameBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link GameBoard#getMapCopy()} of the full and the visible board of a synthetic map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int regions;
+
+    BotState state;
+
+    @Setup
+    public void setUp() {
+        state = SyntheticMap.generate(regions, 42).state(3);
+    }
+
+    @Benchmark
+    public GameBoard copyFullBoard() {
+        return state.getFullGameBoard().getMapCopy();
+    }
+
+    @Benchmark
+    public GameBoard copyVisibleBoard() {
+        return state.getVisibleGameBoard().getMapCopy();
+    }
+}
@@ -0,0 +1,61 @@
+package bot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BotState#setupMap} on the setup_map commands of a synthetic map and {@link BotState#updateMap}
+ * on one of its update_map commands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapParsingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int regions;
+
+    List<byte[]> setupCommands = new ArrayList<>();
+    byte[] updateCommand;
+    BotState state;
+
+    @Setup
+    public void setUp() {
+        SyntheticMap map = SyntheticMap.generate(regions, 42);
+        for (String command : map.setupCommands())
+            if (command.startsWith("setup_map"))
+                setupCommands.add(SyntheticMap.bytes(command));
+        updateCommand = SyntheticMap.bytes(map.updateMapCommand(2));
+        state = map.state(1);
+    }
+
+    @Benchmark
+    public BotState setupMap() {
+        BotState newState = new BotState();
+        for (byte[] command : setupCommands)
+            newState.setupMap(SyntheticMap.reader(command));
+        return newState;
+    }
+
+    @Benchmark
+    public BotState updateMap() {
+        state.updateMap(SyntheticMap.reader(updateCommand));
+        return state;
+    }
+}
@@ -0,0 +1,65 @@
+package bot;
+
+import move.AttackTransferMove;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link TroopMovePlanner} and a full round of {@link BotStarter} on a synthetic map.
+ * <p>
+ * The round is given an empty timebank, so it measures the baseline plans without the improvers that
+ * would otherwise use up the whole move time. The placements change the armies on the board, so the
+ * update_map command of the round is read again before every invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlannerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int regions;
+
+    BotState state;
+    byte[] updateCommand;
+    BotStarter bot;
+
+    @Setup
+    public void setUp() {
+        SyntheticMap map = SyntheticMap.generate(regions, 42);
+        state = map.state(3);
+        updateCommand = SyntheticMap.bytes(map.updateMapCommand(4));
+        bot = new BotStarter();
+    }
+
+    @Setup(Level.Invocation)
+    public void updateMap() {
+        state.updateMap(SyntheticMap.reader(updateCommand));
+    }
+
+    @Benchmark
+    public List<AttackTransferMove> transferMoves() {
+        return new TroopMovePlanner(state).getTransferMoves();
+    }
+
+    @Benchmark
+    public List<AttackTransferMove> fullRound() {
+        bot.getPlaceArmiesMoves(state, 0L);
+        return bot.getAttackTransferMoves(state, 0L);
+    }
+}
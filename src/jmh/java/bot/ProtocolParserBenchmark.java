@@ -0,0 +1,54 @@
+package bot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Scanner based {@link BotParser} with the {@link StreamingBotParser} on the setup_map commands
+ * and ten rounds of update_map and opponent_moves of a synthetic map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolParserBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int regions;
+
+    byte[] protocol;
+
+    @Setup
+    public void setUp() {
+        protocol = SyntheticMap.generate(regions, 42).protocol(10).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public BotState scannerParser() {
+        BotParser parser = new BotParser(new BotStarter(), new ByteArrayInputStream(protocol));
+        parser.run();
+        return parser.currentState;
+    }
+
+    @Benchmark
+    public BotState streamingParser() {
+        StreamingBotParser parser = new StreamingBotParser(new BotStarter(), new ByteArrayInputStream(protocol));
+        parser.run();
+        return parser.currentState;
+    }
+}
@@ -0,0 +1,51 @@
+package bot;
+
+import map.Region;
+import map.SuperRegion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link AttackSuperRegionRanker} and the {@link AttackListRanker} on a synthetic map after a
+ * few rounds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RankerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int regions;
+
+    BotState state;
+
+    @Setup
+    public void setUp() {
+        state = SyntheticMap.generate(regions, 42).state(3);
+    }
+
+    @Benchmark
+    public List<SuperRegion> rankSuperRegions() {
+        return new AttackSuperRegionRanker(state).getRankedSuperRegions();
+    }
+
+    @Benchmark
+    public List<Region> rankAttackList() {
+        return new AttackListRanker(state).getRankedAttackList();
+    }
+}
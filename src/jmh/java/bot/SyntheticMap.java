@@ -0,0 +1,172 @@
+package bot;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates Warlight maps of arbitrary size as engine protocol commands. Regions are laid out on a grid,
+ * connected to their horizontal and vertical neighbors plus some random diagonals, and grouped into
+ * SuperRegions of about six Regions.
+ */
+final class SyntheticMap {
+    static final String ME = "player1";
+    static final String ENEMY = "player2";
+
+    final int regionCount;
+    final int superRegionCount;
+    private final int width;
+    private final int[] superRegionOf;
+    private final List<int[]> neighbors = new ArrayList<>();
+    private final Random random;
+
+    private SyntheticMap(int regionCount, long seed) {
+        this.regionCount = regionCount;
+        this.random = new Random(seed);
+        this.width = (int) Math.ceil(Math.sqrt(regionCount));
+        this.superRegionOf = new int[regionCount + 1];
+
+        int blockWidth = 3;
+        int blocksPerRow = (width + blockWidth - 1) / blockWidth;
+        int maxSuperRegion = 0;
+        for (int id = 1; id <= regionCount; id++) {
+            int x = (id - 1) % width;
+            int y = (id - 1) / width;
+            superRegionOf[id] = (y / 2) * blocksPerRow + x / blockWidth + 1;
+            maxSuperRegion = Math.max(maxSuperRegion, superRegionOf[id]);
+
+            List<Integer> higherNeighbors = new ArrayList<>();
+            if (x + 1 < width && id + 1 <= regionCount)
+                higherNeighbors.add(id + 1);
+            if (id + width <= regionCount)
+                higherNeighbors.add(id + width);
+            if (x + 1 < width && id + width + 1 <= regionCount && random.nextInt(4) == 0)
+                higherNeighbors.add(id + width + 1);
+            neighbors.add(higherNeighbors.stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.superRegionCount = maxSuperRegion;
+    }
+
+    static SyntheticMap generate(int regionCount, long seed) {
+        return new SyntheticMap(regionCount, seed);
+    }
+
+    /**
+     * @return the settings and setup_map commands an engine sends before the first pick
+     */
+    List<String> setupCommands() {
+        List<String> commands = new ArrayList<>();
+        commands.add("settings timebank 10000");
+        commands.add("settings time_per_move 500");
+        commands.add("settings max_rounds 100");
+        commands.add("settings your_bot " + ME);
+        commands.add("settings opponent_bot " + ENEMY);
+
+        StringBuilder superRegions = new StringBuilder("setup_map super_regions");
+        for (int id = 1; id <= superRegionCount; id++)
+            superRegions.append(' ').append(id).append(' ').append(1 + random.nextInt(5));
+        commands.add(superRegions.toString());
+
+        StringBuilder regions = new StringBuilder("setup_map regions");
+        for (int id = 1; id <= regionCount; id++)
+            regions.append(' ').append(id).append(' ').append(superRegionOf[id]);
+        commands.add(regions.toString());
+
+        StringBuilder neighborList = new StringBuilder("setup_map neighbors");
+        for (int id = 1; id <= regionCount; id++) {
+            int[] higher = neighbors.get(id - 1);
+            if (higher.length == 0)
+                continue;
+            neighborList.append(' ').append(id).append(' ');
+            for (int i = 0; i < higher.length; i++)
+                neighborList.append(i == 0 ? "" : ",").append(higher[i]);
+        }
+        commands.add(neighborList.toString());
+
+        StringBuilder wastelands = new StringBuilder("setup_map wastelands");
+        for (int id = 7; id <= regionCount; id += 17)
+            wastelands.append(' ').append(id);
+        commands.add(wastelands.toString());
+        return commands;
+    }
+
+    /**
+     * @param round a round number, later rounds have more owned Regions
+     * @return an update_map command where the left part of the map belongs to me, the right part to the
+     * enemy and a band of neutral Regions around my border is visible
+     */
+    String updateMapCommand(int round) {
+        int myColumns = Math.max(1, Math.min(width - 2, width / 3 + round % Math.max(1, width / 3)));
+        StringBuilder update = new StringBuilder("update_map");
+        for (int id = 1; id <= regionCount; id++) {
+            int x = (id - 1) % width;
+            if (x < myColumns)
+                update.append(' ').append(id).append(' ').append(ME).append(' ').append(1 + random.nextInt(8));
+            else if (x == myColumns)
+                update.append(' ').append(id).append(' ').append(random.nextInt(3) == 0 ? ENEMY : "neutral")
+                        .append(' ').append(2 + random.nextInt(5));
+        }
+        return update.toString();
+    }
+
+    /**
+     * @return an opponent_moves command with a few placements and attacks on the visible border
+     */
+    String opponentMovesCommand(int round) {
+        int myColumns = Math.max(1, Math.min(width - 2, width / 3 + round % Math.max(1, width / 3)));
+        StringBuilder moves = new StringBuilder("opponent_moves");
+        for (int y = 0; y * width + myColumns + 1 <= regionCount; y += 2) {
+            int id = y * width + myColumns + 1;
+            moves.append(' ').append(ENEMY).append(" place_armies ").append(id).append(' ').append(2);
+            moves.append(' ').append(ENEMY).append(" attack/transfer ").append(id).append(' ').append(id - 1)
+                    .append(' ').append(3);
+        }
+        return moves.toString();
+    }
+
+    /**
+     * @return the setup commands followed by the update_map and opponent_moves commands of some rounds
+     */
+    String protocol(int rounds) {
+        StringBuilder protocol = new StringBuilder();
+        for (String command : setupCommands())
+            protocol.append(command).append('\n');
+        for (int round = 1; round <= rounds; round++) {
+            protocol.append("settings starting_armies 5\n");
+            protocol.append(updateMapCommand(round)).append('\n');
+            protocol.append(opponentMovesCommand(round)).append('\n');
+        }
+        return protocol.toString();
+    }
+
+    /**
+     * @return a BotState that has read the setup commands and the updates of some rounds
+     */
+    BotState state(int rounds) {
+        StreamingBotParser parser = new StreamingBotParser(new BotStarter(), new ByteArrayInputStream(bytes(protocol(rounds))));
+        parser.run();
+        return parser.currentState;
+    }
+
+    /**
+     * @return a reader positioned after the first token of the only line of the command
+     */
+    static ProtocolReader reader(byte[] command) {
+        ProtocolReader in = new ProtocolReader(new ByteArrayInputStream(command));
+        try {
+            in.nextLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        in.skipToken();
+        return in;
+    }
+
+    static byte[] bytes(String commands) {
+        return commands.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,65 @@
+package bot;
+
+import log.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs a planner as an anytime algorithm. A baseline plan is always computed first, so a valid answer exists
+ * however little time is left. The improvers then take turns refining the best plan until the Deadline
+ * expires or a full round of improvers finds nothing better.
+ * <p>
+ * The baseline doesn't get the Deadline: it is the answer when there is no time at all, e.g. without a
+ * timebank, so it always runs to completion. Baselines and the rankers they use are assumed to take time
+ * linear in the size of the map, or close to it, and anything slower belongs in an improver.
+ * @param <T> the type of plan
+ */
+public class AnytimePlanner<T> {
+    private static final Logger log = new Logger(AnytimePlanner.class.getSimpleName());
+    private final String name;
+    private final List<PlanImprover<T>> improvers = new ArrayList<>();
+
+    public AnytimePlanner(String name) {
+        this.name = name;
+    }
+
+    public AnytimePlanner<T> addImprover(PlanImprover<T> improver) {
+        improvers.add(improver);
+        return this;
+    }
+
+    /**
+     * @param baseline computes the first answer, always run to completion
+     * @param deadline the time by which the plan is needed
+     * @return the best plan found before the Deadline
+     */
+    public T plan(Supplier<T> baseline, Deadline deadline) {
+        T best = baseline.get();
+        int improvements = 0;
+        boolean improved = !improvers.isEmpty();
+
+        while (improved && !deadline.isExpired()) {
+            improved = false;
+            for (PlanImprover<T> improver : improvers) {
+                if (deadline.isExpired()) {
+                    break;
+                }
+                try {
+                    T candidate = improver.improve(best, deadline);
+                    if (candidate != null) {
+                        best = candidate;
+                        improved = true;
+                        improvements++;
+                    }
+                } catch (RuntimeException ex) {
+                    log.error("Exception while improving " + name + " plan.", ex);
+                }
+            }
+        }
+
+        log.debug("Planned %s with %d improvements, %s", name, improvements, deadline);
+        return best;
+    }
+}
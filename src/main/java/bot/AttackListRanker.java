@@ -6,8 +6,6 @@ import map.Region;
 import map.SuperRegion;
 
 import java.util.List;
-import java.util.stream.Collectors;
-import static bot.Settings.*;
 
 /**
  * Created by johnunderwood on 7/11/15.
@@ -18,25 +16,31 @@ public class AttackListRanker {
     private final GameBoard gameBoard;
     private final String myName;
     private final String enemyName;
+    private final BotParameters parameters;
 
     public AttackListRanker(BotState state) {
+        this(state, BotParameters.DEFAULT);
+    }
+
+    public AttackListRanker(BotState state, BotParameters parameters) {
         this.state = state;
+        this.parameters = parameters;
         this.gameBoard = state.getVisibleGameBoard();
         this.myName = state.getMyPlayerName();
         this.enemyName = state.getOpponentPlayerName();
     }
 
     public List<Region> getRankedAttackList() {
-        List<Region> unownedNeighbors = gameBoard.getRegions().stream()
-                .filter(region -> !region.ownedByPlayer(myName)).collect(Collectors.toList());
-        List<SuperRegion> rankedSuperRegions = new AttackSuperRegionRanker(state).getRankedSuperRegions();
+        List<Region> unownedNeighbors = gameBoard.getFrontier(myName, enemyName).getAttackableRegions();
+        double enemyOwnershipFactor = parameters.getEnemyOwnershipFactor();
+        List<SuperRegion> rankedSuperRegions = new AttackSuperRegionRanker(state, parameters).getRankedSuperRegions();
 
         unownedNeighbors.sort((r1, r2) -> {
             if(rankedSuperRegions.indexOf(r1.getSuperRegion()) == rankedSuperRegions.indexOf(r2.getSuperRegion()) ) {
                 int weightedR1Armies = r1.ownedByPlayer(enemyName) ?
-                        (int)Math.floor(r1.getArmies() * ENEMY_OWNERSHIP_FACTOR) : r1.getArmies();
+                        (int)Math.floor(r1.getArmies() * enemyOwnershipFactor) : r1.getArmies();
                 int weightedR2Armies = r2.ownedByPlayer(enemyName) ?
-                        (int)Math.floor(r2.getArmies() * ENEMY_OWNERSHIP_FACTOR) : r2.getArmies();
+                        (int)Math.floor(r2.getArmies() * enemyOwnershipFactor) : r2.getArmies();
                 return weightedR1Armies - weightedR2Armies;
             } else {
                 return rankedSuperRegions.indexOf(r1.getSuperRegion()) - rankedSuperRegions.indexOf(r2.getSuperRegion());
@@ -1,14 +1,18 @@
 package bot;
 
 import log.Logger;
+import map.GameBoard;
+import map.Region;
+import map.RegionMask;
 import map.SuperRegion;
 
 import java.util.ArrayList;
 import java.util.List;
-import static bot.Settings.*;
 
 /**
  * Created by johnunderwood on 7/11/15.
+ * <p>
+ * The armies to take of every SuperRegion are counted once before sorting, the comparator only reads them.
  */
 public class AttackSuperRegionRanker {
     private static Logger log = new Logger(AttackSuperRegionRanker.class.getSimpleName());
@@ -16,15 +20,25 @@ public class AttackSuperRegionRanker {
     private final String myName;
     private final String enemyName;
     private final BotState state;
+    private final BotParameters parameters;
 
     public AttackSuperRegionRanker(BotState state) {
+        this(state, BotParameters.DEFAULT);
+    }
+
+    public AttackSuperRegionRanker(BotState state, BotParameters parameters) {
         this.state = state;
+        this.parameters = parameters;
         this.myName = state.getMyPlayerName();
         this.enemyName = state.getOpponentPlayerName();
     }
 
     public List<SuperRegion> getRankedSuperRegions() {
-        List<SuperRegion> superRegions = new ArrayList<>(state.getVisibleGameBoard().getSuperRegions());
+        GameBoard board = state.getVisibleGameBoard();
+        List<SuperRegion> superRegions = new ArrayList<>(board.getSuperRegions());
+        int[] armiesToTake = new int[board.getSuperRegionIdBound()];
+        for (SuperRegion superRegion : superRegions)
+            armiesToTake[superRegion.getId()] = getEnemyArmiesInSuperRegion(superRegion);
         superRegions.sort((sr1, sr2) -> {
             if( sr1.getArmiesReward() == 0 ) {
                 if( sr2.getArmiesReward() == 0) {
@@ -35,7 +49,7 @@ public class AttackSuperRegionRanker {
             } else if (sr2.getArmiesReward() == 0 ) {
                 return -1;
             } else {
-                int armiesToTakeDif = getEnemyArmiesInSuperRegion(sr1) - getEnemyArmiesInSuperRegion(sr2);
+                int armiesToTakeDif = armiesToTake[sr1.getId()] - armiesToTake[sr2.getId()];
                 if( armiesToTakeDif == 0 ) {
                     return sr2.getArmiesReward() - sr1.getArmiesReward();
                 } else {
@@ -48,17 +62,25 @@ public class AttackSuperRegionRanker {
     }
 
     public int getEnemyArmiesInSuperRegion(SuperRegion superRegion) {
-        int superRegionArmyCount = superRegion.getSubRegions().stream()
-                .filter(r -> !r.ownedByPlayer(myName))
-                .mapToInt(r -> {
-                    if (r.getArmies() == 0) {
-                        return state.getWasteLands().contains(r) ? WASTELAND_ARMIES : NORMAL_ARMIES;
-                    } else {
-                        return r.ownedByPlayer(enemyName) ?
-                                (int)Math.floor(r.getArmies() * ENEMY_OWNERSHIP_FACTOR) : r.getArmies();
-                    }
-                }).sum();
-        log.trace("Counted %d armies in superRegion %s", superRegionArmyCount, superRegion);
+        GameBoard board = state.getVisibleGameBoard();
+        RegionMask regionMask = superRegion.getRegionMask();
+        RegionMask mine = board.getOwnerMask(myName);
+        RegionMask enemy = board.getOwnerMask(enemyName);
+        EnemyBelief belief = state.getEnemyBelief();
+        int superRegionArmyCount = 0;
+        for (int id = regionMask.nextSetBitAndNot(mine, 0); id >= 0; id = regionMask.nextSetBitAndNot(mine, id + 1)) {
+            Region r = board.getRegion(id);
+            if (r.getArmies() == 0 && belief.isEnemy(r)) { //in the fog, last seen owned by the enemy
+                superRegionArmyCount += (int)Math.floor(belief.getArmies(r) * parameters.getEnemyOwnershipFactor());
+            } else if (r.getArmies() == 0) {
+                superRegionArmyCount += parameters.getFogArmies(r.isWasteland());
+            } else {
+                superRegionArmyCount += enemy.get(id) ?
+                        (int)Math.floor(r.getArmies() * parameters.getEnemyOwnershipFactor()) : r.getArmies();
+            }
+        }
+        if (log.isTraceEnabled()) //called for every SuperRegion of every ranking, don't box unless logged
+            log.trace("Counted %d armies in superRegion %s", superRegionArmyCount, superRegion);
         return superRegionArmyCount;
     }
 }
@@ -24,4 +24,11 @@ public interface Bot {
 
     public List<AttackTransferMove> getAttackTransferMoves(BotState state, Long timeOut);
 
+    /**
+     * Called by the parser as soon as the engine sends a command, before it is handled. A bot that thinks in
+     * the background while waiting for the engine stops doing so here.
+     */
+    public default void stopPondering() {
+    }
+
 }
@@ -0,0 +1,113 @@
+package bot;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static bot.Settings.*;
+
+/**
+ * The tunable parameters of the bot, defaulting to the values in {@link Settings}. Instances are immutable, so
+ * bots playing in parallel can share them; {@link #with(String, double)} makes a changed copy.
+ */
+public final class BotParameters {
+    public static final BotParameters DEFAULT = new BotParameters(ENEMY_OWNERSHIP_FACTOR, WASTELAND_ARMIES,
+            NORMAL_ARMIES, EXTRA_EFFORT_FACTOR, ATTACK_WIN_PROBABILITY);
+    private static final List<String> NAMES = Arrays.asList("enemyOwnershipFactor", "wastelandArmies",
+            "normalArmies", "extraEffortFactor", "attackWinProbability");
+
+    private final double enemyOwnershipFactor;
+    private final int wastelandArmies;
+    private final int normalArmies;
+    private final int extraEffortFactor;
+    private final double attackWinProbability;
+
+    private BotParameters(double enemyOwnershipFactor, int wastelandArmies, int normalArmies, int extraEffortFactor,
+                          double attackWinProbability) {
+        this.enemyOwnershipFactor = enemyOwnershipFactor;
+        this.wastelandArmies = wastelandArmies;
+        this.normalArmies = normalArmies;
+        this.extraEffortFactor = extraEffortFactor;
+        this.attackWinProbability = attackWinProbability;
+    }
+
+    /**
+     * @return the names accepted by {@link #with(String, double)}
+     */
+    public static List<String> names() {
+        return NAMES;
+    }
+
+    /**
+     * @param name the name of a parameter, see {@link #names()}
+     * @param value the new value, rounded for whole number parameters
+     * @return a copy with the parameter changed
+     */
+    public BotParameters with(String name, double value) {
+        switch (name) {
+            case "enemyOwnershipFactor":
+                return new BotParameters(value, wastelandArmies, normalArmies, extraEffortFactor, attackWinProbability);
+            case "wastelandArmies":
+                return new BotParameters(enemyOwnershipFactor, (int) Math.round(value), normalArmies,
+                        extraEffortFactor, attackWinProbability);
+            case "normalArmies":
+                return new BotParameters(enemyOwnershipFactor, wastelandArmies, (int) Math.round(value),
+                        extraEffortFactor, attackWinProbability);
+            case "extraEffortFactor":
+                return new BotParameters(enemyOwnershipFactor, wastelandArmies, normalArmies,
+                        (int) Math.round(value), attackWinProbability);
+            case "attackWinProbability":
+                return new BotParameters(enemyOwnershipFactor, wastelandArmies, normalArmies, extraEffortFactor, value);
+            default:
+                throw new IllegalArgumentException("Unknown parameter " + name + ", expected one of " + NAMES);
+        }
+    }
+
+    /**
+     * @return the share of its armies an enemy Region is counted with when ranking attacks
+     */
+    public double getEnemyOwnershipFactor() {
+        return enemyOwnershipFactor;
+    }
+
+    /**
+     * @return the armies assumed on a wasteland in the fog
+     */
+    public int getWastelandArmies() {
+        return wastelandArmies;
+    }
+
+    /**
+     * @return the armies assumed on any other Region in the fog
+     */
+    public int getNormalArmies() {
+        return normalArmies;
+    }
+
+    /**
+     * @return the armies added to an attack for every round the same target was attacked before
+     */
+    public int getExtraEffortFactor() {
+        return extraEffortFactor;
+    }
+
+    /**
+     * @return the probability with which attacks are sized to take their target
+     */
+    public double getAttackWinProbability() {
+        return attackWinProbability;
+    }
+
+    /**
+     * @return the armies to assume on a Region whose armies are unknown
+     */
+    public int getFogArmies(boolean wasteland) {
+        return wasteland ? wastelandArmies : normalArmies;
+    }
+
+    @Override
+    public String toString() {
+        return "BotParameters: [enemyOwnershipFactor: " + enemyOwnershipFactor + ", wastelandArmies: " +
+                wastelandArmies + ", normalArmies: " + normalArmies + ", extraEffortFactor: " + extraEffortFactor +
+                ", attackWinProbability: " + attackWinProbability + " ]";
+    }
+}
@@ -12,8 +12,13 @@ package bot;
 
 import map.Region;
 import move.AttackTransferMove;
+import move.Move;
+import move.MoveWriter;
 import move.PlaceArmiesMove;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
 
@@ -21,12 +26,23 @@ public class BotParser {
 
     final Scanner scan;
 
+    final MoveWriter out;
+
     final Bot bot;
 
     BotState currentState;
 
     public BotParser(Bot bot) {
-        this.scan = new Scanner(System.in);
+        this(bot, System.in, System.out);
+    }
+
+    public BotParser(Bot bot, InputStream in) {
+        this(bot, in, System.out);
+    }
+
+    public BotParser(Bot bot, InputStream in, OutputStream out) {
+        this.scan = new Scanner(in);
+        this.out = new MoveWriter(out);
         this.bot = bot;
         this.currentState = new BotState();
     }
@@ -34,6 +50,7 @@ public class BotParser {
     public void run() {
         while (scan.hasNextLine()) {
             String line = scan.nextLine().trim();
+            bot.stopPondering();
             if (line.length() == 0) {
                 continue;
             }
@@ -43,25 +60,20 @@ public class BotParser {
                 currentState.setPickableStartingRegions(parts);
                 Region startingRegion = bot.getStartingRegion(currentState, Long.valueOf(parts[1]));
 
-                System.out.println(startingRegion.getId());
+                out.writeLine(startingRegion.getId());
             } else if (parts.length == 3 && parts[0].equals("go")) {
                 //we need to do a move
-                String output = "";
                 if (parts[1].equals("place_armies")) {
                     //place armies
                     List<PlaceArmiesMove> placeArmiesMoves = bot.getPlaceArmiesMoves(currentState, Long.valueOf(parts[2]));
-                    for (PlaceArmiesMove move : placeArmiesMoves)
-                        output = output.concat(move.toString() + ",");
+                    out.writeMoves(placeArmiesMoves);
                 } else if (parts[1].equals("attack/transfer")) {
                     //attack/transfer
                     List<AttackTransferMove> attackTransferMoves = bot.getAttackTransferMoves(currentState, Long.valueOf(parts[2]));
-                    for (AttackTransferMove move : attackTransferMoves)
-                        output = output.concat(move.toString() + ",");
+                    out.writeMoves(attackTransferMoves);
+                } else {
+                    out.writeMoves(Collections.<Move>emptyList());
                 }
-                if (output.length() > 0)
-                    System.out.println(output);
-                else
-                    System.out.println("No moves");
             } else if (parts[0].equals("settings")) {
                 //update settings
                 currentState.updateSettings(parts[1], parts);
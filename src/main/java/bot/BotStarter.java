@@ -20,23 +20,83 @@ package bot;
  * a new instance of your bot, and then the parser is started.
  */
 
+import log.AsyncAppender;
+import log.LogConfig;
 import log.Logger;
+import map.BoardSnapshot;
+import map.Frontier;
 import map.Region;
 import map.SuperRegion;
 import move.AttackTransferMove;
 import move.PlaceArmiesMove;
+import search.MonteCarloMoveSearch;
+import search.SearchState;
+import search.StateEvaluator;
+import trace.TraceRecorder;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static bot.Settings.*;
 
-public class BotStarter implements Bot {
+public class BotStarter implements Bot, AutoCloseable {
     private static Logger log = new Logger(BotStarter.class.getSimpleName());
+    /** System property naming a file to record the game to, see {@link TraceRecorder} */
+    public static final String TRACE_FILE_PROPERTY = "trace.file";
+    /** System property that turns on pondering, see {@link #setPondering(boolean)} */
+    public static final String PONDER_PROPERTY = "ponder";
+    /** System property with the number of move search threads, all cores if it isn't set */
+    public static final String SEARCH_THREADS_PROPERTY = "search.threads";
+    private static final long PONDER_MAX_MILLIS = 10000; //pondering stops by itself if the engine takes longer
+    /** per attack win probability, so tournament entrants with different ones all have their table */
+    private static final Map<Double, CombatModel> combatModels = new ConcurrentHashMap<>();
     private List<AttackTransferMove> attackMoves = new ArrayList<>();
+    private List<PlaceArmiesMove> placeMoves = new ArrayList<>();
+    private BoardSnapshot roundBoard; //the visible board at the start of this round, planning never changes it
+    private int roundBoardNumber;
     private Map<Region, Integer> extraEffort = new HashMap<>();
+    private TroopMovePlanner troopMovePlanner; //kept between rounds, its Frontier follows the visible board
+    private final AnytimePlanner<RoundPlan> roundPlanner = new AnytimePlanner<>("round");
+    private final AnytimePlanner<List<AttackTransferMove>> attackTransferPlanner = new AnytimePlanner<>("attack/transfer");
+    private final BotParameters parameters;
+    private final CombatModel combatModel;
+    private final MonteCarloMoveSearch moveSearch;
+    private BotState roundBotState;
+    private BotState searchBotState;
+    private SearchState searchRoot; //the board before this round's attacks and transfers
     private int roundNum = 0;
+    private ExecutorService ponderExecutor;
+    private Future<?> ponderTask;
+    private Deadline ponderDeadline;
 
+    public BotStarter() {
+        this(BotParameters.DEFAULT);
+    }
+
+    public BotStarter(BotParameters parameters) {
+        this(parameters, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param searchThreads the worker threads of the move search, 1 when several games are played at once
+     */
+    public BotStarter(BotParameters parameters, int searchThreads) {
+        this.parameters = parameters;
+        this.combatModel = combatModels.computeIfAbsent(parameters.getAttackWinProbability(),
+                p -> new CombatModel(COMBAT_TABLE_MAX_ARMIES, p, PlacementSolver.SURE_WIN_PROBABILITY));
+        this.moveSearch = new MonteCarloMoveSearch(combatModel, new StateEvaluator(), parameters, searchThreads);
+        roundPlanner.addImprover((plan, deadline) -> new PlacementSolver(roundBotState, parameters, combatModel,
+                extraEffort).improve(plan, deadline));
+        attackTransferPlanner.addImprover((plan, deadline) -> moveSearch.improve(searchRoot,
+                searchBotState.getVisibleGameBoard(), searchBotState.getMyPlayerName(), plan, deadline));
+    }
 
     @Override
     /**
@@ -47,7 +107,7 @@ public class BotStarter implements Bot {
     public Region getStartingRegion(BotState state, Long timeOut) {
         state.updateMap(new String[0]);
         List<Region> pickableRegions = state.getPickableStartingRegions();
-        List<SuperRegion> superRegionRank = new AttackSuperRegionRanker(state).getRankedSuperRegions();
+        List<SuperRegion> superRegionRank = new AttackSuperRegionRanker(state, parameters).getRankedSuperRegions();
         Region selectedRegion = null;
         int superRegionRankIdx = superRegionRank.size();
         for (Region region : pickableRegions) {
@@ -64,7 +124,7 @@ public class BotStarter implements Bot {
     private void updateExtraEffort(List<Region> regionsAttackedLastTurn, List<Region> regionsToAttackThisTurn) {
         for (Region region : regionsToAttackThisTurn) {
             if (regionsToAttackThisTurn.contains(region) && regionsAttackedLastTurn.contains(region)) {
-                extraEffort.put(region, extraEffort.get(region) + EXTRA_EFFORT_FACTOR);
+                extraEffort.put(region, extraEffort.get(region) + parameters.getExtraEffortFactor());
                 log.debug("Set extra effort %s to %d", region, extraEffort.get(region));
             } else {
                 extraEffort.put(region, 0);
@@ -83,49 +143,68 @@ public class BotStarter implements Bot {
      * @return The list of PlaceArmiesMoves for one round
      */
     public List<PlaceArmiesMove> getPlaceArmiesMoves(BotState state, Long timeOut) {
+        stopPondering();
         log.info("Round %d started", ++roundNum);
+        Deadline deadline = Deadline.forMove(timeOut, state.getTimePerMove());
+        roundBoard = BoardSnapshot.of(state.getVisibleGameBoard());
+        roundBoardNumber = state.getRoundNumber();
+        roundBotState = state;
+        RoundPlan plan = roundPlanner.plan(() -> getBaselineRoundPlan(state), deadline);
+        attackMoves = plan.getAttackMoves();
+        placeMoves = plan.getPlaceArmiesMoves();
+        if (ponderExecutor != null) {
+            startPondering(state);
+        }
+        return placeMoves;
+    }
+
+    /**
+     * The first answer of the round planner: walks the ranked attack list and places armies next to each
+     * target until there are none left, then spreads the rest over the border. Armies placed and sent are
+     * tracked on a snapshot of the board. Runs without a Deadline, its time is linear in the targets ranked.
+     */
+    private RoundPlan getBaselineRoundPlan(BotState state) {
         List<PlaceArmiesMove> placeArmiesMoves = new ArrayList<>();
+        List<AttackTransferMove> plannedAttacks = new ArrayList<>();
+        BoardSnapshot board = roundBoard;
 
         try {
-            List<Region> attackRegions = new AttackListRanker(state).getRankedAttackList();
+            List<Region> attackRegions = new AttackListRanker(state, parameters).getRankedAttackList();
             List<Region> attackedRegions = attackMoves.stream()
                     .map(r -> r.getToRegion()).collect(Collectors.toList());
 
             updateExtraEffort(attackedRegions, attackRegions);
             logExtraEffort();
-            attackMoves = new ArrayList<>();
             String myName = state.getMyPlayerName();
             String enemyName = state.getOpponentPlayerName();
             int armiesLeft = state.getStartingArmies();
 
             for (Region attackRegion : attackRegions) {
-                log.debug("Selected best region to attack " + attackRegion);
-                int requiredArmies;
-                if (attackRegion.getArmies() < 6) {
-                    requiredArmies = (int) Math.ceil(attackRegion.getArmies() * 1.5) + extraEffort.get(attackRegion);
-                } else {
-                    requiredArmies = (int) Math.floor(attackRegion.getArmies() * 1.7) + extraEffort.get(attackRegion);
-                }
+                log.debug("Selected best region to attack %s", attackRegion);
+                int requiredArmies = combatModel.armiesNeeded(attackRegion.getArmies(), parameters.getAttackWinProbability()) +
+                        extraEffort.get(attackRegion);
                 log.debug("Armies required to attack %d", requiredArmies);
                 List<Region> neighbors = attackRegion.getNeighbors().stream()
                         .filter(r -> r.ownedByPlayer(myName)).collect(Collectors.toList());
-                neighbors.sort((r1, r2) -> r2.getArmies() - r1.getArmies());
+                BoardSnapshot armies = board;
+                neighbors.sort((r1, r2) -> armies.getArmies(r2) - armies.getArmies(r1));
                 Region sourceRegion = neighbors.get(0);
+                int sourceId = sourceRegion.getId();
 
-                if (armiesLeft > 0 && sourceRegion.getArmies() <= requiredArmies) {
-                    int armiesToRecruit = requiredArmies - sourceRegion.getArmies() + 1;
+                if (armiesLeft > 0 && board.getArmies(sourceId) <= requiredArmies) {
+                    int armiesToRecruit = requiredArmies - board.getArmies(sourceId) + 1;
                     if (armiesToRecruit > armiesLeft) {
                         armiesToRecruit = armiesLeft;
                     }
                     placeArmiesMoves.add(new PlaceArmiesMove(myName, sourceRegion, armiesToRecruit));
-                    sourceRegion.setArmies(sourceRegion.getArmies() + armiesToRecruit);
+                    board = board.addArmies(sourceId, armiesToRecruit);
                     armiesLeft -= armiesToRecruit;
                     log.info("Recruiting %d armies in %s to attack %s", armiesToRecruit, sourceRegion, attackRegion);
                 }
 
-                if (sourceRegion.getArmies() > requiredArmies) {
-                    attackMoves.add(new AttackTransferMove(myName, sourceRegion, attackRegion, requiredArmies));
-                    sourceRegion.setArmies(sourceRegion.getArmies() - requiredArmies);
+                if (board.getArmies(sourceId) > requiredArmies) {
+                    plannedAttacks.add(new AttackTransferMove(myName, sourceRegion, attackRegion, requiredArmies));
+                    board = board.addArmies(sourceId, -requiredArmies);
                     log.info("Attacking from %s to %s with %d armies", sourceRegion, attackRegion, requiredArmies);
                 }
             }
@@ -138,7 +217,7 @@ public class BotStarter implements Bot {
             log.error("Exception while generating place army moves.", ex);
         }
 
-        return placeArmiesMoves;
+        return new RoundPlan(placeArmiesMoves, plannedAttacks);
     }
 
     private List<PlaceArmiesMove> distributeRemainingArmies(BotState state, int armiesLeft) {
@@ -159,9 +238,8 @@ public class BotStarter implements Bot {
             }
             PlaceArmiesMove move = new PlaceArmiesMove(myName, r, armiesToRecruit);
             moves.add(move);
-            r.setArmies(r.getArmies() + armiesToRecruit);
             armiesLeft -= armiesToRecruit;
-            log.info("Placing extra remaining armies " + move);
+            log.info("Placing extra remaining armies %s", move);
             if(armiesLeft == 0) {
                 break;
             }
@@ -171,21 +249,15 @@ public class BotStarter implements Bot {
     }
 
     private List<Region> getRegionsToDistributeTo(BotState state) {
-        String myName = state.getMyPlayerName();
-        String enemyName = state.getOpponentPlayerName();
+        Frontier frontier = state.getVisibleGameBoard().getFrontier(state.getMyPlayerName(),
+                state.getOpponentPlayerName());
         //Get regions that border enemy
-        List<Region> regions = state.getVisibleGameBoard().getRegions().stream()
-                .filter(r -> r.ownedByPlayer(myName))
-                .filter(r -> r.getNeighbors().stream().anyMatch(n -> n.ownedByPlayer(enemyName)))
-                .collect(Collectors.toList());
+        List<Region> regions = frontier.getEnemyBorderRegions();
 
         if (regions.size() == 0) {
             log.debug("No enemies within range.  Distributing remaining troops to any border region.");
             //Get regions not owned by me
-            regions = state.getVisibleGameBoard().getRegions().stream()
-                    .filter(r -> r.ownedByPlayer(myName))
-                    .filter(r -> r.getNeighbors().stream().anyMatch(n -> !n.ownedByPlayer(myName)))
-                    .collect(Collectors.toList());
+            regions = frontier.getBorderRegions();
         } else {
             log.debug("Distributing remaining troops amonst all enemy border regions.");
         }
@@ -200,18 +272,157 @@ public class BotStarter implements Bot {
      * @return The list of PlaceArmiesMoves for one round
      */
     public List<AttackTransferMove> getAttackTransferMoves(BotState state, Long timeOut) {
-        ArrayList<AttackTransferMove> attackTransferMoves = new ArrayList<>();
-        attackTransferMoves.addAll(attackMoves);
-        attackTransferMoves.addAll(new TroopMovePlanner(state).getTransferMoves());
+        stopPondering();
+        Deadline deadline = Deadline.forMove(timeOut, state.getTimePerMove());
+        searchBotState = state;
+        searchRoot = getSearchRoot(state, placeMoves);
+        List<AttackTransferMove> attackTransferMoves = attackTransferPlanner.plan(
+                () -> getBaselineAttackTransferMoves(state, getRoundBoard(state), placeMoves, attackMoves), deadline);
 
         log.info("Round %d done", roundNum);
         return attackTransferMoves;
     }
 
+    /**
+     * The first answer of the attack/transfer planner: the attacks planned with the placements followed by
+     * the transfers of the TroopMovePlanner. Runs without a Deadline, the transfer flow has a node per Region
+     * I own and takes a few milliseconds on the largest maps.
+     */
+    private List<AttackTransferMove> getBaselineAttackTransferMoves(BotState state, BoardSnapshot board,
+                                                                    List<PlaceArmiesMove> placements,
+                                                                    List<AttackTransferMove> attacks) {
+        ArrayList<AttackTransferMove> attackTransferMoves = new ArrayList<>();
+        attackTransferMoves.addAll(attacks);
+        if (troopMovePlanner == null) {
+            troopMovePlanner = new TroopMovePlanner(state);
+        }
+        attackTransferMoves.addAll(troopMovePlanner.getTransferMoves(getPlannedBoard(board, placements, attacks)));
+        return attackTransferMoves;
+    }
+
+    /**
+     * @return the board at the start of this round, taken again if the placements weren't asked for this round
+     */
+    private BoardSnapshot getRoundBoard(BotState state) {
+        if (roundBoard == null || roundBoardNumber != state.getRoundNumber())
+            return BoardSnapshot.of(state.getVisibleGameBoard());
+        return roundBoard;
+    }
+
+    /**
+     * The board after this round's placements with the armies of the planned attacks taken off their sources.
+     */
+    private static BoardSnapshot getPlannedBoard(BoardSnapshot board, List<PlaceArmiesMove> placements,
+                                                 List<AttackTransferMove> attacks) {
+        BoardSnapshot planned = board;
+        for (PlaceArmiesMove move : placements)
+            planned = planned.addArmies(move.getRegion().getId(), move.getArmies());
+        for (AttackTransferMove move : attacks)
+            planned = planned.addArmies(move.getFromRegion().getId(), -move.getArmies());
+        return planned;
+    }
+
+    /**
+     * The search starts from the board after this round's placements, before any attack.
+     */
+    private SearchState getSearchRoot(BotState state, List<PlaceArmiesMove> placements) {
+        SearchState root = SearchState.fromBoard(state.getVisibleGameBoard(), state.getMyPlayerName(),
+                state.getOpponentPlayerName(), parameters);
+        for (PlaceArmiesMove move : placements) {
+            int id = move.getRegion().getId();
+            root.setArmies(id, root.getArmies(id) + move.getArmies());
+        }
+        return root;
+    }
+
+    /**
+     * With pondering on, the attacks and transfers of a round are searched in the background from the moment
+     * the placements are answered until the engine asks for them, which is while it waits for the opponent's
+     * placements. The search of the real request finds the pondered choice in the transposition table if the
+     * board it starts from and the plan hash the same, otherwise it searches as usual.
+     */
+    public void setPondering(boolean pondering) {
+        stopPondering();
+        if (pondering && ponderExecutor == null) {
+            ponderExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "ponder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else if (!pondering && ponderExecutor != null) {
+            ponderExecutor.shutdown();
+            ponderExecutor = null;
+        }
+    }
+
+    /**
+     * Starts pondering from the projected board after this round's placements. Root and plan are made on the
+     * ponder thread from this round's board and moves, so the placements are answered first. The BotState is
+     * only read until the next command, which stops pondering before it is parsed.
+     */
+    private void startPondering(BotState state) {
+        BoardSnapshot board = roundBoard;
+        List<PlaceArmiesMove> placements = placeMoves;
+        List<AttackTransferMove> attacks = attackMoves;
+        Deadline deadline = Deadline.in(PONDER_MAX_MILLIS);
+        ponderDeadline = deadline;
+        ponderTask = ponderExecutor.submit(() -> {
+            SearchState root = getSearchRoot(state, placements);
+            List<AttackTransferMove> plan = getBaselineAttackTransferMoves(state, board, placements, attacks);
+            moveSearch.ponder(root, plan, deadline);
+        });
+    }
+
+    /**
+     * Cancels pondering and waits for it to stop, which takes at most one simulation per search worker.
+     */
+    @Override
+    public void stopPondering() {
+        if (ponderTask == null) {
+            return;
+        }
+        ponderDeadline.cancel();
+        try {
+            ponderTask.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            log.error("Exception while pondering.", ex.getCause());
+        }
+        ponderTask = null;
+        ponderDeadline = null;
+    }
+
+    /**
+     * Stops pondering and the threads of the move search.
+     */
+    @Override
+    public void close() {
+        setPondering(false);
+        moveSearch.shutdown();
+    }
+
     public static void main(String[] args) {
+        //format and write log lines on a background thread, dropping lines rather than slowing down a move
+        LogConfig.getInstance().setAppender(new AsyncAppender(System.err, AsyncAppender.DEFAULT_CAPACITY,
+                AsyncAppender.OverflowPolicy.DROP));
         log.info("Bot Started");
-        BotParser parser = new BotParser(new BotStarter());
-        parser.run();
+        int searchThreads = Integer.getInteger(SEARCH_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        try (BotStarter bot = new BotStarter(BotParameters.DEFAULT, searchThreads)) {
+            bot.setPondering(Boolean.getBoolean(PONDER_PROPERTY));
+            StreamingBotParser parser = new StreamingBotParser(bot);
+            String traceFile = System.getProperty(TRACE_FILE_PROPERTY);
+            if (traceFile == null) {
+                parser.run();
+                return;
+            }
+            try (TraceRecorder recorder = new TraceRecorder(Paths.get(traceFile))) {
+                parser.setRecorder(recorder);
+                parser.run();
+            } catch (IOException e) {
+                log.error("Unable to write trace " + traceFile, e);
+            }
+        }
     }
 
 }
@@ -26,12 +26,13 @@ public class BotState {
     private String opponentName = "";
 
     private final GameBoard fullGameBoard = new GameBoard(); //This map is known from the start, contains all the regions and how they are connected, doesn't change after initialization
-    private GameBoard visibleGameBoard; //This map represents everything the player can see, updated at the end of each round.
+    private GameBoard visibleGameBoard; //This map represents everything the player can see, updated in place at the end of each round. Regions in the fog are flagged not visible.
 
     private List<Region> pickableStartingRegions; //list of regions the player can choose the start from
     private List<Region> wastelands; //wastelands, i.e. neutral regions with a larger amount of armies on them. Given before the picking of starting regions
 
     private List<Move> opponentMoves; //list of all the opponent's moves, reset at the end of each round
+    private EnemyBelief enemyBelief; //what is known about the enemy behind the fog, kept over all rounds
 
     private int startingArmies; //number of armies the player can place on map
     private int maxRounds;
@@ -70,17 +71,41 @@ public class BotState {
         }
     }
 
+    //same as updateSettings(String, String[]), reading the tokens after "settings" from the protocol stream
+    public void updateSettings(ProtocolReader in) {
+        String key = in.nextToken();
+
+        if (key.equals("starting_regions")) {
+            setPickableStartingRegions(in);
+            return;
+        }
+
+        if (key.equals("your_bot")) //bot's own name
+            myName = in.nextToken();
+        else if (key.equals("opponent_bot")) //opponent's name
+            opponentName = in.nextToken();
+        else if (key.equals("max_rounds"))
+            maxRounds = in.nextInt();
+        else if (key.equals("timebank"))
+            totalTimebank = in.nextLong();
+        else if (key.equals("time_per_move"))
+            timePerMove = in.nextLong();
+        else if (key.equals("starting_armies")) {
+            startingArmies = in.nextInt();
+            roundNumber++; //next round
+        }
+    }
+
     //initial map is given to the bot with all the information except for player and armies info
     public void setupMap(String[] mapInput) {
-        int i, regionId, superRegionId, wastelandId, reward;
+        int i;
 
         if (mapInput[1].equals("super_regions")) {
             for (i = 2; i < mapInput.length; i++) {
                 try {
-                    superRegionId = Integer.parseInt(mapInput[i]);
+                    int superRegionId = Integer.parseInt(mapInput[i]);
                     i++;
-                    reward = Integer.parseInt(mapInput[i]);
-                    fullGameBoard.add(new SuperRegion(superRegionId, reward));
+                    addSuperRegion(superRegionId, Integer.parseInt(mapInput[i]));
                 } catch (Exception e) {
                     System.err.println("Unable to parse SuperRegions");
                 }
@@ -88,11 +113,9 @@ public class BotState {
         } else if (mapInput[1].equals("regions")) {
             for (i = 2; i < mapInput.length; i++) {
                 try {
-                    regionId = Integer.parseInt(mapInput[i]);
+                    int regionId = Integer.parseInt(mapInput[i]);
                     i++;
-                    superRegionId = Integer.parseInt(mapInput[i]);
-                    SuperRegion superRegion = fullGameBoard.getSuperRegion(superRegionId);
-                    fullGameBoard.add(new Region(regionId, superRegion));
+                    addRegion(regionId, Integer.parseInt(mapInput[i]));
                 } catch (Exception e) {
                     System.err.println("Unable to parse Regions " + e.getMessage());
                 }
@@ -100,23 +123,22 @@ public class BotState {
         } else if (mapInput[1].equals("neighbors")) {
             for (i = 2; i < mapInput.length; i++) {
                 try {
-                    Region region = fullGameBoard.getRegion(Integer.parseInt(mapInput[i]));
+                    int regionId = Integer.parseInt(mapInput[i]);
                     i++;
                     String[] neighborIds = mapInput[i].split(",");
                     for (int j = 0; j < neighborIds.length; j++) {
-                        Region neighbor = fullGameBoard.getRegion(Integer.parseInt(neighborIds[j]));
-                        region.addNeighbor(neighbor);
+                        addNeighbor(regionId, Integer.parseInt(neighborIds[j]));
                     }
                 } catch (Exception e) {
                     System.err.println("Unable to parse Neighbors " + e.getMessage());
                 }
             }
+            fullGameBoard.getGraph(); //pack all connections into the adjacency graph once
         } else if (mapInput[1].equals("wastelands")) {
             wastelands = new ArrayList<Region>();
             for (i = 2; i < mapInput.length; i++) {
                 try {
-                    wastelandId = Integer.parseInt(mapInput[i]);
-                    wastelands.add(fullGameBoard.getRegion(wastelandId));
+                    addWasteland(Integer.parseInt(mapInput[i]));
                 } catch (Exception e) {
                     System.err.println("Unable to parse wastelands " + e.getMessage());
                 }
@@ -124,45 +146,153 @@ public class BotState {
         }
     }
 
+    //same as setupMap(String[]), reading the tokens after "setup_map" from the protocol stream
+    public void setupMap(ProtocolReader in) {
+        String kind = in.nextToken();
+
+        if (kind.equals("super_regions")) {
+            while (in.hasNextToken()) {
+                try {
+                    int superRegionId = in.nextInt();
+                    addSuperRegion(superRegionId, in.nextInt());
+                } catch (Exception e) {
+                    System.err.println("Unable to parse SuperRegions");
+                    in.skipToTokenEnd();
+                }
+            }
+        } else if (kind.equals("regions")) {
+            while (in.hasNextToken()) {
+                try {
+                    int regionId = in.nextInt();
+                    addRegion(regionId, in.nextInt());
+                } catch (Exception e) {
+                    System.err.println("Unable to parse Regions " + e.getMessage());
+                    in.skipToTokenEnd();
+                }
+            }
+        } else if (kind.equals("neighbors")) {
+            while (in.hasNextToken()) {
+                try {
+                    int regionId = in.nextInt();
+                    do {
+                        addNeighbor(regionId, in.nextInt());
+                    } while (in.hasNextListElement());
+                } catch (Exception e) {
+                    System.err.println("Unable to parse Neighbors " + e.getMessage());
+                    in.skipToTokenEnd(); //skip the rest of the list, the reader would stay on its comma
+                }
+            }
+            fullGameBoard.getGraph(); //pack all connections into the adjacency graph once
+        } else if (kind.equals("wastelands")) {
+            wastelands = new ArrayList<Region>();
+            while (in.hasNextToken()) {
+                try {
+                    addWasteland(in.nextInt());
+                } catch (Exception e) {
+                    System.err.println("Unable to parse wastelands " + e.getMessage());
+                    in.skipToTokenEnd();
+                }
+            }
+        }
+    }
+
+    private void addSuperRegion(int superRegionId, int reward) {
+        fullGameBoard.add(new SuperRegion(superRegionId, reward));
+    }
+
+    private void addRegion(int regionId, int superRegionId) {
+        SuperRegion superRegion = fullGameBoard.getSuperRegion(superRegionId);
+        fullGameBoard.add(new Region(regionId, superRegion));
+    }
+
+    private void addNeighbor(int regionId, int neighborId) {
+        Region region = fullGameBoard.getRegion(regionId);
+        Region neighbor = fullGameBoard.getRegion(neighborId);
+        fullGameBoard.addNeighbor(region.getId(), neighbor.getId());
+    }
+
+    private void addWasteland(int wastelandId) {
+        Region wasteland = fullGameBoard.getRegion(wastelandId);
+        wasteland.setWasteland(true);
+        wastelands.add(wasteland);
+    }
+
     //regions from wich a player is able to pick his preferred starting region
     public void setPickableStartingRegions(String[] input) {
         pickableStartingRegions = new ArrayList<Region>();
         for (int i = 2; i < input.length; i++) {
-            int regionId;
             try {
-                regionId = Integer.parseInt(input[i]);
-                Region pickableRegion = fullGameBoard.getRegion(regionId);
-                pickableStartingRegions.add(pickableRegion);
+                addPickableStartingRegion(Integer.parseInt(input[i]));
+            } catch (Exception e) {
+                System.err.println("Unable to parse pickable regions " + e.getMessage());
+            }
+        }
+    }
+
+    //same as setPickableStartingRegions(String[]), reading the remaining region ids of the current line
+    public void setPickableStartingRegions(ProtocolReader in) {
+        pickableStartingRegions = new ArrayList<Region>();
+        while (in.hasNextToken()) {
+            try {
+                addPickableStartingRegion(in.nextInt());
             } catch (Exception e) {
                 System.err.println("Unable to parse pickable regions " + e.getMessage());
+                in.skipToTokenEnd();
             }
         }
     }
 
+    private void addPickableStartingRegion(int regionId) {
+        pickableStartingRegions.add(fullGameBoard.getRegion(regionId));
+    }
+
     //visible regions are given to the bot with player and armies info
+    //the visible map is copied from the full map once and then only updated with the changes of each round
     public void updateMap(String[] mapInput) {
-        visibleGameBoard = fullGameBoard.getMapCopy();
+        beginMapUpdate();
         for (int i = 1; i < mapInput.length; i++) {
             try {
-                Region region = visibleGameBoard.getRegion(Integer.parseInt(mapInput[i]));
+                int regionId = Integer.parseInt(mapInput[i]);
                 String playerName = mapInput[i + 1];
                 int armies = Integer.parseInt(mapInput[i + 2]);
 
-                region.setPlayerName(playerName);
-                region.setArmies(armies);
+                updateRegion(regionId, playerName, armies);
                 i += 2;
             } catch (Exception e) {
                 System.err.println("Unable to parse GameBoard Update " + e.getMessage());
             }
         }
-        ArrayList<Region> unknownRegions = new ArrayList<Region>();
+        visibleGameBoard.endVisibilityUpdate(); //regions which are no longer visible become unknown
+        enemyBelief.updateMap(roundNumber);
+    }
+
+    //same as updateMap(String[]), reading the tokens after "update_map" from the protocol stream
+    public void updateMap(ProtocolReader in) {
+        beginMapUpdate();
+        while (in.hasNextToken()) {
+            try {
+                int regionId = in.nextInt();
+                String playerName = in.nextToken();
+                updateRegion(regionId, playerName, in.nextInt());
+            } catch (Exception e) {
+                System.err.println("Unable to parse GameBoard Update " + e.getMessage());
+                in.skipToTokenEnd();
+            }
+        }
+        visibleGameBoard.endVisibilityUpdate(); //regions which are no longer visible become unknown
+        enemyBelief.updateMap(roundNumber);
+    }
+
+    private void beginMapUpdate() {
+        if (visibleGameBoard == null) {
+            visibleGameBoard = fullGameBoard.getMapCopy();
+            enemyBelief = new EnemyBelief(visibleGameBoard, opponentName);
+        }
+        visibleGameBoard.beginVisibilityUpdate();
+    }
 
-        //remove regions which are unknown.
-        for (Region region : visibleGameBoard.regions)
-            if (region.getPlayerName().equals("unknown"))
-                unknownRegions.add(region);
-        for (Region unknownRegion : unknownRegions)
-            visibleGameBoard.getRegions().remove(unknownRegion);
+    private void updateRegion(int regionId, String playerName, int armies) {
+        visibleGameBoard.updateVisibleRegion(visibleGameBoard.getRegion(regionId), playerName, armies);
     }
 
     //Parses a list of the opponent's moves every round.
@@ -171,34 +301,58 @@ public class BotState {
         opponentMoves.clear();
         for (int i = 1; i < moveInput.length; i++) {
             try {
-                Move move;
                 if (moveInput[i + 1].equals("place_armies")) {
-                    Region region = visibleGameBoard.getRegion(Integer.parseInt(moveInput[i + 2]));
-                    String playerName = moveInput[i];
-                    int armies = Integer.parseInt(moveInput[i + 3]);
-                    move = new PlaceArmiesMove(playerName, region, armies);
+                    addOpponentPlaceArmies(moveInput[i], Integer.parseInt(moveInput[i + 2]),
+                            Integer.parseInt(moveInput[i + 3]));
                     i += 3;
                 } else if (moveInput[i + 1].equals("attack/transfer")) {
-                    Region fromRegion = visibleGameBoard.getRegion(Integer.parseInt(moveInput[i + 2]));
-                    if (fromRegion == null) //might happen if the region isn't visible
-                        fromRegion = fullGameBoard.getRegion(Integer.parseInt(moveInput[i + 2]));
-
-                    Region toRegion = visibleGameBoard.getRegion(Integer.parseInt(moveInput[i + 3]));
-                    if (toRegion == null) //might happen if the region isn't visible
-                        toRegion = fullGameBoard.getRegion(Integer.parseInt(moveInput[i + 3]));
-
-                    String playerName = moveInput[i];
-                    int armies = Integer.parseInt(moveInput[i + 4]);
-                    move = new AttackTransferMove(playerName, fromRegion, toRegion, armies);
+                    addOpponentAttackTransfer(moveInput[i], Integer.parseInt(moveInput[i + 2]),
+                            Integer.parseInt(moveInput[i + 3]), Integer.parseInt(moveInput[i + 4]));
                     i += 4;
+                } //never happens otherwise
+            } catch (Exception e) {
+                System.err.println("Unable to parse Opponent moves " + e.getMessage());
+            }
+        }
+        if (enemyBelief != null) //no map update yet, nothing to place the moves on
+            enemyBelief.opponentMoves(opponentMoves);
+    }
+
+    //same as readOpponentMoves(String[]), reading the tokens after "opponent_moves" from the protocol stream
+    public void readOpponentMoves(ProtocolReader in) {
+        opponentMoves.clear();
+        while (in.hasNextToken()) {
+            try {
+                String playerName = in.nextToken();
+                if (in.nextTokenIs("place_armies")) {
+                    int regionId = in.nextInt();
+                    addOpponentPlaceArmies(playerName, regionId, in.nextInt());
+                } else if (in.nextTokenIs("attack/transfer")) {
+                    int fromRegionId = in.nextInt();
+                    int toRegionId = in.nextInt();
+                    addOpponentAttackTransfer(playerName, fromRegionId, toRegionId, in.nextInt());
                 } else { //never happens
-                    continue;
+                    in.skipToken();
                 }
-                opponentMoves.add(move);
             } catch (Exception e) {
                 System.err.println("Unable to parse Opponent moves " + e.getMessage());
+                in.skipToTokenEnd();
             }
         }
+        if (enemyBelief != null) //no map update yet, nothing to place the moves on
+            enemyBelief.opponentMoves(opponentMoves);
+    }
+
+    private void addOpponentPlaceArmies(String playerName, int regionId, int armies) {
+        Region region = visibleGameBoard.getRegion(regionId);
+        opponentMoves.add(new PlaceArmiesMove(playerName, region, armies));
+    }
+
+    private void addOpponentAttackTransfer(String playerName, int fromRegionId, int toRegionId, int armies) {
+        //regions that aren't visible are still on the visible map, flagged as not visible
+        Region fromRegion = visibleGameBoard.getRegion(fromRegionId);
+        Region toRegion = visibleGameBoard.getRegion(toRegionId);
+        opponentMoves.add(new AttackTransferMove(playerName, fromRegion, toRegion, armies));
     }
 
     public String getMyPlayerName() {
@@ -217,6 +371,18 @@ public class BotState {
         return roundNumber;
     }
 
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    public long getTotalTimebank() {
+        return totalTimebank;
+    }
+
+    public long getTimePerMove() {
+        return timePerMove;
+    }
+
     public GameBoard getVisibleGameBoard() {
         return visibleGameBoard;
     }
@@ -229,6 +395,10 @@ public class BotState {
         return opponentMoves;
     }
 
+    public EnemyBelief getEnemyBelief() {
+        return enemyBelief;
+    }
+
     public List<Region> getPickableStartingRegions() {
         return pickableStartingRegions;
     }
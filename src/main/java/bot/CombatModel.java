@@ -0,0 +1,204 @@
+package bot;
+
+import java.util.Arrays;
+
+/**
+ * Exact outcome distributions of Warlight battles. Every attacking army destroys a defending army with a
+ * probability of 60%, every defending army destroys an attacking army with a probability of 70%. An attack
+ * takes the Region if all defenders are destroyed and at least one attacker survives.
+ * <p>
+ * The cumulative binomial distributions of both sides are precomputed up to a configurable number of armies
+ * and stored in flat triangular arrays, so win probabilities are one or two array reads. The armies needed
+ * for the configured win probabilities are precomputed per defender count as well. Larger battles fall back
+ * to a normal approximation.
+ */
+public class CombatModel {
+    public static final double ATTACKER_KILL_PROBABILITY = 0.6;
+    public static final double DEFENDER_KILL_PROBABILITY = 0.7;
+
+    private final int maxArmies;
+    private final double[] attackerKillsCdf; //P(attacker kills <= k) for n attackers at n * (n + 1) / 2 + k
+    private final double[] defenderKillsCdf; //P(defender kills <= k) for n defenders at n * (n + 1) / 2 + k
+    private final double[] thresholds;
+    private final int[][] armiesNeeded; //per threshold, the attackers needed for a defender count
+
+    /**
+     * @param maxArmies the largest attacker or defender count to tabulate
+     * @param winProbabilities win probabilities for which the needed armies are precomputed
+     */
+    public CombatModel(int maxArmies, double... winProbabilities) {
+        this.maxArmies = maxArmies;
+        this.attackerKillsCdf = binomialCdfTable(maxArmies, ATTACKER_KILL_PROBABILITY);
+        this.defenderKillsCdf = binomialCdfTable(maxArmies, DEFENDER_KILL_PROBABILITY);
+        this.thresholds = winProbabilities.clone();
+        this.armiesNeeded = new int[thresholds.length][maxArmies + 1];
+        for (int t = 0; t < thresholds.length; t++)
+            for (int defenders = 0; defenders <= maxArmies; defenders++)
+                armiesNeeded[t][defenders] = searchArmiesNeeded(defenders, thresholds[t]);
+    }
+
+    /**
+     * @return the largest army count with exact probabilities
+     */
+    public int getMaxArmies() {
+        return maxArmies;
+    }
+
+    /**
+     * @param attackers the number of attacking armies
+     * @param defenders the number of armies on the attacked Region
+     * @return the probability that the attack takes the Region
+     */
+    public double winProbability(int attackers, int defenders) {
+        if (attackers <= 0 || defenders > attackers) {
+            return 0;
+        }
+        if (defenders <= 0) {
+            return 1;
+        }
+        //all defenders destroyed and not all attackers destroyed
+        return (1 - attackerKillsAtMost(attackers, defenders - 1)) * defenderKillsAtMost(defenders, attackers - 1);
+    }
+
+    /**
+     * @param defenders the number of armies on the attacked Region
+     * @param winProbability the minimal probability to take the Region
+     * @return the smallest number of attacking armies that takes the Region with at least that probability
+     */
+    public int armiesNeeded(int defenders, double winProbability) {
+        if (defenders <= maxArmies) {
+            for (int t = 0; t < thresholds.length; t++)
+                if (thresholds[t] == winProbability)
+                    return armiesNeeded[t][Math.max(defenders, 0)];
+        }
+        return searchArmiesNeeded(defenders, winProbability);
+    }
+
+    /**
+     * @return the probability that the attacking armies destroy at most the given number of defenders
+     */
+    public double attackerKillsAtMost(int attackers, int kills) {
+        return cdf(attackerKillsCdf, attackers, kills, ATTACKER_KILL_PROBABILITY);
+    }
+
+    /**
+     * @return the probability that the defending armies destroy at most the given number of attackers
+     */
+    public double defenderKillsAtMost(int defenders, int kills) {
+        return cdf(defenderKillsCdf, defenders, kills, DEFENDER_KILL_PROBABILITY);
+    }
+
+    /**
+     * @param attackers the number of attacking armies
+     * @param uniform a uniform random number in [0, 1)
+     * @return the number of defenders destroyed, sampled by inverting the cumulative distribution
+     */
+    public int sampleAttackerKills(int attackers, double uniform) {
+        return sample(attackerKillsCdf, attackers, uniform, ATTACKER_KILL_PROBABILITY);
+    }
+
+    /**
+     * @param defenders the number of defending armies
+     * @param uniform a uniform random number in [0, 1)
+     * @return the number of attackers destroyed, sampled by inverting the cumulative distribution
+     */
+    public int sampleDefenderKills(int defenders, double uniform) {
+        return sample(defenderKillsCdf, defenders, uniform, DEFENDER_KILL_PROBABILITY);
+    }
+
+    private int searchArmiesNeeded(int defenders, double winProbability) {
+        if (defenders <= 0) {
+            return 1;
+        }
+        if (winProbability >= 1) {
+            return Integer.MAX_VALUE;
+        }
+        //the win probability grows with the attackers, find the first count reaching the target
+        int low = defenders;
+        int high = Math.max(defenders * 2, defenders + 4);
+        while (winProbability(high, defenders) < winProbability)
+            high *= 2;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (winProbability(middle, defenders) >= winProbability)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+        return low;
+    }
+
+    private double cdf(double[] table, int n, int k, double p) {
+        if (k < 0) {
+            return 0;
+        }
+        if (k >= n) {
+            return 1;
+        }
+        if (n <= maxArmies) {
+            return table[offset(n) + k];
+        }
+        //normal approximation with continuity correction
+        double mean = n * p;
+        double deviation = Math.sqrt(n * p * (1 - p));
+        return normalCdf((k + .5 - mean) / deviation);
+    }
+
+    private int sample(double[] table, int n, double uniform, double p) {
+        if (n <= 0) {
+            return 0;
+        }
+        if (n > maxArmies) {
+            int lowK = 0;
+            int highK = n;
+            while (lowK < highK) {
+                int middle = (lowK + highK) >>> 1;
+                if (cdf(table, n, middle, p) > uniform)
+                    highK = middle;
+                else
+                    lowK = middle + 1;
+            }
+            return lowK;
+        }
+        int offset = offset(n);
+        int index = Arrays.binarySearch(table, offset, offset + n + 1, uniform);
+        int k = (index >= 0 ? index + 1 : -index - 1) - offset;
+        return Math.min(k, n);
+    }
+
+    private static int offset(int n) {
+        return n * (n + 1) / 2;
+    }
+
+    private static double[] binomialCdfTable(int maxN, double p) {
+        double[] table = new double[offset(maxN + 1)];
+        double[] pmf = new double[maxN + 1];
+        double[] next = new double[maxN + 1];
+        pmf[0] = 1;
+        for (int n = 0; n <= maxN; n++) {
+            double cumulative = 0;
+            for (int k = 0; k <= n; k++) {
+                cumulative += pmf[k];
+                table[offset(n) + k] = Math.min(cumulative, 1);
+            }
+            table[offset(n) + n] = 1;
+            if (n < maxN) {
+                next[0] = pmf[0] * (1 - p);
+                for (int k = 1; k <= n + 1; k++)
+                    next[k] = (k <= n ? pmf[k] * (1 - p) : 0) + pmf[k - 1] * p;
+                double[] swap = pmf;
+                pmf = next;
+                next = swap;
+            }
+        }
+        return table;
+    }
+
+    private static double normalCdf(double z) {
+        //Abramowitz and Stegun 26.2.17, accurate to about 1e-7
+        double t = 1 / (1 + 0.2316419 * Math.abs(z));
+        double density = Math.exp(-z * z / 2) / Math.sqrt(2 * Math.PI);
+        double tail = density * t * (0.319381530 + t * (-0.356563782 + t * (1.781477937 + t * (-1.821255978 + t * 1.330274429))));
+        return z >= 0 ? 1 - tail : tail;
+    }
+}
@@ -0,0 +1,75 @@
+package bot;
+
+import static bot.Settings.*;
+
+/**
+ * A point in time by which a planner has to return its answer.
+ */
+public final class Deadline {
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param millis time from now
+     * @return a Deadline that expires after the given time
+     */
+    public static Deadline in(long millis) {
+        return new Deadline(System.nanoTime() + Math.max(0, millis) * 1000000L);
+    }
+
+    /**
+     * The engine gives the remaining timebank with every request and adds timePerMove to it for each move.
+     * A move may spend the time added for it plus a share of the saved up timebank, minus a safety margin
+     * for writing the response.
+     * @param timeOut the timebank left in milliseconds, as given by the engine
+     * @param timePerMove the time added to the timebank per move in milliseconds
+     * @return the Deadline for the current move
+     */
+    public static Deadline forMove(Long timeOut, long timePerMove) {
+        long timeBank = timeOut == null ? 0 : timeOut;
+        long budget = Math.min(timeBank, timePerMove + (long) ((timeBank - timePerMove) * TIMEBANK_SPEND_FRACTION));
+        return in(budget - DEADLINE_SAFETY_MARGIN);
+    }
+
+    /**
+     * @return a Deadline that expires after the given fraction of the time remaining until this one
+     */
+    public Deadline fraction(double fraction) {
+        return new Deadline(System.nanoTime() + (long) (remainingNanos() * fraction));
+    }
+
+    /**
+     * Lets this Deadline expire now, e.g. to stop a planner running on another thread. Deadlines made from
+     * this one with {@link #fraction(double)} aren't affected.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isExpired() {
+        return cancelled || System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * @return nanoseconds until this Deadline expires, 0 if it has expired
+     */
+    public long remainingNanos() {
+        return cancelled ? 0 : Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * @return milliseconds until this Deadline expires, 0 if it has expired
+     */
+    public long remainingMillis() {
+        return remainingNanos() / 1000000L;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline: [remaining: " + remainingMillis() + "ms ]";
+    }
+}
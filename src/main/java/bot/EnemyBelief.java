@@ -0,0 +1,127 @@
+package bot;
+
+import map.GameBoard;
+import map.Region;
+import map.SuperRegion;
+import move.AttackTransferMove;
+import move.Move;
+import move.PlaceArmiesMove;
+
+import java.util.List;
+
+import static bot.Settings.*;
+
+/**
+ * What is believed about the enemy behind the fog of war: which Regions it owns, the armies last seen on them
+ * and its income. Regions keep the owner and armies they had when they were last seen until they are seen
+ * again, or until {@link Settings#ENEMY_BELIEF_MAX_AGE} rounds have passed.
+ * <p>
+ * The belief is updated from the Regions given in each map update and from the visible opponent moves, and is
+ * kept in arrays indexed by Region and SuperRegion id, so it takes the same memory in every round.
+ */
+public class EnemyBelief {
+    public static final int UNKNOWN = -1;
+    private static final int BASE_INCOME = 5;
+
+    private final GameBoard board;
+    private final String enemyName;
+    private final boolean[] enemy; //believed to be owned by the enemy
+    private final int[] armies;
+    private final int[] seenRound; //the round the owner was last seen or inferred
+    private final int[] enemyInSuperRegion;
+    private int round;
+    private int placed; //armies the enemy was seen placing in the last round
+    private int income = BASE_INCOME;
+
+    public EnemyBelief(GameBoard board, String enemyName) {
+        this.board = board;
+        this.enemyName = enemyName;
+        this.enemy = new boolean[board.getRegionIdBound()];
+        this.armies = new int[board.getRegionIdBound()];
+        this.seenRound = new int[board.getRegionIdBound()];
+        this.enemyInSuperRegion = new int[board.getSuperRegionIdBound()];
+    }
+
+    /**
+     * Takes in the Regions given in the map update of a round. Regions that are in the fog keep their belief
+     * until it is too old.
+     */
+    public void updateMap(int round) {
+        this.round = round;
+        this.placed = 0;
+        for (Region region : board.getVisibleRegions())
+            setBelief(region, region.ownedByPlayer(enemyName), region.getArmies());
+        for (Region region : board.getRegions()) {
+            int id = region.getId();
+            if (enemy[id] && !region.isVisible() && round - seenRound[id] > ENEMY_BELIEF_MAX_AGE)
+                setBelief(region, false, 0);
+        }
+        updateIncome();
+    }
+
+    /**
+     * Takes in the visible opponent moves of the last round, which are given after the map update. The map
+     * already shows their result on visible Regions, but moves out of the fog show where the enemy is and
+     * placements show a lower bound of its income.
+     */
+    public void opponentMoves(List<Move> moves) {
+        for (Move move : moves) {
+            if (move instanceof PlaceArmiesMove) {
+                placed += ((PlaceArmiesMove) move).getArmies();
+            } else if (move instanceof AttackTransferMove) {
+                AttackTransferMove attack = (AttackTransferMove) move;
+                Region from = attack.getFromRegion();
+                if (!from.isVisible()) //the Region had more armies than it sent and kept at least one
+                    setBelief(from, true, enemy[from.getId()] ? Math.max(armies[from.getId()] - attack.getArmies(), 1) : 1);
+            }
+        }
+        updateIncome();
+    }
+
+    private void setBelief(Region region, boolean isEnemy, int armies) {
+        int id = region.getId();
+        if (enemy[id] != isEnemy) {
+            enemy[id] = isEnemy;
+            enemyInSuperRegion[region.getSuperRegion().getId()] += isEnemy ? 1 : -1;
+        }
+        this.armies[id] = isEnemy ? armies : 0;
+        seenRound[id] = round;
+    }
+
+    private void updateIncome() {
+        int bonus = BASE_INCOME;
+        for (SuperRegion superRegion : board.getSuperRegions())
+            if (enemyInSuperRegion[superRegion.getId()] == superRegion.getSubRegions().size())
+                bonus += superRegion.getArmiesReward();
+        income = Math.max(bonus, placed);
+    }
+
+    /**
+     * @return True if the Region is believed to be owned by the enemy, false otherwise
+     */
+    public boolean isEnemy(Region region) {
+        return enemy[region.getId()];
+    }
+
+    /**
+     * @return the armies last seen on a Region believed to be the enemy's, or UNKNOWN for other Regions
+     */
+    public int getArmies(Region region) {
+        return enemy[region.getId()] ? armies[region.getId()] : UNKNOWN;
+    }
+
+    /**
+     * @return the round in which the owner of the Region was last seen or inferred, 0 if never
+     */
+    public int getSeenRound(Region region) {
+        return seenRound[region.getId()];
+    }
+
+    /**
+     * @return the estimated armies the enemy gets each round: the base income plus the rewards of the
+     * SuperRegions it is believed to own, at least what it was seen placing
+     */
+    public int getIncome() {
+        return income;
+    }
+}
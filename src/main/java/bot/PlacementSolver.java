@@ -0,0 +1,292 @@
+package bot;
+
+import log.Logger;
+import map.Frontier;
+import map.GameBoard;
+import map.Region;
+import map.SuperRegion;
+import move.AttackTransferMove;
+import move.PlaceArmiesMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the armies of a round between attacks and the defence of the border as a knapsack.
+ * <p>
+ * Every border Region is a group. Its options are a number of armies to place on it together with an order for
+ * each attack target it is the strongest neighbor of: no attack, the attack the greedy plan would send, or a
+ * larger one that is nearly sure to win. An option is worth the chance of every attack times the value of its
+ * target, plus the chance that the armies left behind hold the Region against the strongest enemy stack next
+ * to it and the enemy's income. Targets are valued by the rank of their SuperRegion, halving with every rank,
+ * so the solver keeps the focus of the {@link AttackSuperRegionRanker}. A dynamic program over the groups and
+ * the number of armies placed finds the best option per group, in
+ * O(groups * armies^2 + groups * 3^targets * armies).
+ * <p>
+ * Plans are compared by the same value, so the solver only replaces a plan it scores higher.
+ */
+public class PlacementSolver implements PlanImprover<RoundPlan> {
+    private static final Logger log = new Logger(PlacementSolver.class.getSimpleName());
+    private static final double IMPOSSIBLE = Double.NEGATIVE_INFINITY;
+    private static final int MAX_TARGETS = 6; //attack targets per source the solver considers
+    private static final long MAX_MILLIS = 5; //the solver gives up after this long
+    private static final double MIN_IMPROVEMENT = .01; //value the solver has to gain over the plan
+    static final double SURE_WIN_PROBABILITY = .9; //win probability of the larger attack order
+    private static final double RANK_VALUE = 30; //value of a target in the best ranked SuperRegion
+    private static final double SPARE_WEIGHT = .05; //value of the logarithm of the armies on a border Region
+
+    private final GameBoard board;
+    private final String myName;
+    private final String enemyName;
+    private final CombatModel combatModel;
+    private final double attackWinProbability;
+    private final int armies;
+    private final int enemyIncome;
+    private final List<Region> groups;
+    private final List<List<Region>> groupTargets = new ArrayList<>();
+    private final List<SuperRegion> rankedSuperRegions;
+    private final int[][] attackSizes; //per target id the armies of the two attack orders
+    private final double[] targetValue; //per target id
+    private final int[] threat; //per group id, the armies the enemy can attack it with
+
+    /**
+     * @param extraEffort armies added to the attack on a Region because earlier attacks on it failed
+     */
+    public PlacementSolver(BotState state, BotParameters parameters, CombatModel combatModel,
+                           Map<Region, Integer> extraEffort) {
+        this.board = state.getVisibleGameBoard();
+        this.myName = state.getMyPlayerName();
+        this.enemyName = state.getOpponentPlayerName();
+        this.combatModel = combatModel;
+        this.attackWinProbability = parameters.getAttackWinProbability();
+        this.armies = state.getStartingArmies();
+        this.enemyIncome = state.getEnemyBelief() == null ? 0 : state.getEnemyBelief().getIncome();
+        this.rankedSuperRegions = new AttackSuperRegionRanker(state, parameters).getRankedSuperRegions();
+        this.attackSizes = new int[board.getRegionIdBound()][];
+        this.targetValue = new double[board.getRegionIdBound()];
+        this.threat = new int[board.getRegionIdBound()];
+
+        Frontier frontier = board.getFrontier(myName, enemyName);
+        this.groups = frontier.getBorderRegions();
+        for (Region group : groups) {
+            groupTargets.add(new ArrayList<>());
+            threat[group.getId()] = getThreat(group);
+        }
+        for (Region target : frontier.getAttackableRegions()) {
+            Integer extra = extraEffort.get(target);
+            int needed = combatModel.armiesNeeded(target.getArmies(), attackWinProbability) +
+                    (extra == null ? 0 : extra);
+            int sure = combatModel.armiesNeeded(target.getArmies(), SURE_WIN_PROBABILITY);
+            attackSizes[target.getId()] = new int[]{needed, Math.max(needed, sure)};
+            targetValue[target.getId()] = getTargetValue(target);
+            Region source = getStrongestNeighbor(target);
+            int index = groups.indexOf(source);
+            if (index >= 0)
+                groupTargets.get(index).add(target);
+        }
+        for (List<Region> targets : groupTargets) {
+            targets.sort((t1, t2) -> Double.compare(targetValue[t2.getId()] / attackSizes[t2.getId()][0],
+                    targetValue[t1.getId()] / attackSizes[t1.getId()][0]));
+            if (targets.size() > MAX_TARGETS)
+                targets.subList(MAX_TARGETS, targets.size()).clear();
+        }
+    }
+
+    @Override
+    public RoundPlan improve(RoundPlan plan, Deadline deadline) {
+        Deadline solverDeadline = Deadline.in(Math.min(deadline.remainingMillis(), MAX_MILLIS));
+        RoundPlan solution = solve(solverDeadline);
+        if (solution == null) {
+            return null;
+        }
+        double planValue = getValue(plan);
+        double solutionValue = getValue(solution);
+        log.debug("Solved placements worth %.3f, plan worth %.3f", solutionValue, planValue);
+        return solutionValue > planValue + MIN_IMPROVEMENT ? solution : null;
+    }
+
+    /**
+     * @return the best placements and attacks, or null if there is nothing to place on or the Deadline expired
+     */
+    public RoundPlan solve(Deadline deadline) {
+        int groupCount = groups.size();
+        if (groupCount == 0) {
+            return null;
+        }
+        //value[b] the best value of the groups so far with b armies placed on them
+        double[] value = new double[armies + 1];
+        Arrays.fill(value, IMPOSSIBLE);
+        value[0] = 0;
+        int[][] placed = new int[groupCount][armies + 1];
+        int[][] orders = new int[groupCount][];
+
+        for (int g = 0; g < groupCount; g++) {
+            if (deadline.isExpired()) {
+                log.debug("Placement solver stopped after %d of %d groups", g, groupCount);
+                return null;
+            }
+            double[] groupValue = new double[armies + 1];
+            orders[g] = new int[armies + 1];
+            solveGroup(g, groupValue, orders[g]);
+
+            double[] next = new double[armies + 1];
+            Arrays.fill(next, IMPOSSIBLE);
+            for (int b = 0; b <= armies; b++) {
+                if (value[b] == IMPOSSIBLE)
+                    continue;
+                for (int x = 0; b + x <= armies; x++) {
+                    if (groupValue[x] == IMPOSSIBLE)
+                        continue;
+                    double v = value[b] + groupValue[x];
+                    if (v > next[b + x]) {
+                        next[b + x] = v;
+                        placed[g][b + x] = x;
+                    }
+                }
+            }
+            value = next;
+        }
+
+        List<PlaceArmiesMove> placeArmiesMoves = new ArrayList<>();
+        List<AttackTransferMove> attackMoves = new ArrayList<>();
+        int left = armies;
+        for (int g = groupCount - 1; g >= 0; g--) {
+            int x = placed[g][left];
+            Region group = groups.get(g);
+            if (x > 0)
+                placeArmiesMoves.add(new PlaceArmiesMove(myName, group, x));
+            List<Region> targets = groupTargets.get(g);
+            int order = orders[g][x];
+            for (int t = 0; t < targets.size(); t++, order /= 3) {
+                if (order % 3 != 0) {
+                    Region target = targets.get(t);
+                    attackMoves.add(new AttackTransferMove(myName, group, target,
+                            attackSizes[target.getId()][order % 3 - 1]));
+                }
+            }
+            left -= x;
+        }
+        attackMoves.sort((m1, m2) -> Double.compare(targetValue[m2.getToRegion().getId()],
+                targetValue[m1.getToRegion().getId()]));
+        return new RoundPlan(placeArmiesMoves, attackMoves);
+    }
+
+    /**
+     * Finds the best orders for the targets of a group for every number of armies placed on it. The orders are
+     * encoded as a number in base 3 with a digit per target: 0 for no attack, 1 or 2 for the attack sizes.
+     */
+    private void solveGroup(int g, double[] groupValue, int[] bestOrders) {
+        Region group = groups.get(g);
+        List<Region> targets = groupTargets.get(g);
+        int combinations = 1;
+        for (int t = 0; t < targets.size(); t++)
+            combinations *= 3;
+        double[] hold = new double[group.getArmies() + armies + 1];
+        for (int r = 1; r < hold.length; r++)
+            hold[r] = getHoldValue(group, r);
+
+        Arrays.fill(groupValue, IMPOSSIBLE);
+        for (int c = 0; c < combinations; c++) {
+            int sent = 0;
+            double attackValue = 0;
+            boolean duplicate = false;
+            int order = c;
+            for (int t = 0; t < targets.size(); t++, order /= 3) {
+                if (order % 3 == 0)
+                    continue;
+                int[] sizes = attackSizes[targets.get(t).getId()];
+                duplicate |= order % 3 == 2 && sizes[1] == sizes[0];
+                sent += sizes[order % 3 - 1];
+                attackValue += getAttackValue(targets.get(t), sizes[order % 3 - 1]);
+            }
+            if (duplicate)
+                continue;
+            for (int x = Math.max(0, sent + 1 - group.getArmies()); x <= armies; x++) {
+                double v = attackValue + hold[group.getArmies() + x - sent];
+                if (v > groupValue[x]) {
+                    groupValue[x] = v;
+                    bestOrders[x] = c;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the value of a plan, scored the way the solver scores its options
+     */
+    public double getValue(RoundPlan plan) {
+        int[] left = new int[board.getRegionIdBound()];
+        for (Region group : groups)
+            left[group.getId()] = group.getArmies();
+        for (PlaceArmiesMove move : plan.getPlaceArmiesMoves())
+            left[move.getRegion().getId()] += move.getArmies();
+        double value = 0;
+        for (AttackTransferMove move : plan.getAttackMoves()) {
+            left[move.getFromRegion().getId()] -= move.getArmies();
+            value += getAttackValue(move.getToRegion(), move.getArmies());
+        }
+        for (Region group : groups)
+            value += getHoldValue(group, Math.max(1, left[group.getId()]));
+        return value;
+    }
+
+    private double getAttackValue(Region target, int attackers) {
+        return combatModel.winProbability(attackers, target.getArmies()) * targetValue[target.getId()];
+    }
+
+    /**
+     * @return the chance to keep the Region with the given armies on it times its value, plus a little for
+     * every army so spare armies are spread over the border
+     */
+    private double getHoldValue(Region region, int armiesLeft) {
+        double value = SPARE_WEIGHT * Math.log(armiesLeft);
+        int attackers = threat[region.getId()];
+        if (attackers > 0) {
+            double regionValue = ownsSuperRegion(region, myName) ?
+                    1 + region.getSuperRegion().getArmiesReward() : 1;
+            value += (1 - combatModel.winProbability(attackers, armiesLeft)) * regionValue;
+        }
+        return value;
+    }
+
+    /**
+     * @return one for taking the Region plus a value for the rank of its SuperRegion that halves with every rank
+     */
+    private double getTargetValue(Region target) {
+        int rank = rankedSuperRegions.indexOf(target.getSuperRegion());
+        return 1 + RANK_VALUE * Math.pow(.5, Math.max(rank, 0));
+    }
+
+    private boolean ownsSuperRegion(Region region, String playerName) {
+        return board.ownsSuperRegion(playerName, region.getSuperRegion());
+    }
+
+    /**
+     * @return the armies the enemy can attack the Region with next round: its strongest neighboring stack and
+     * its income, 0 if no neighbor is the enemy's
+     */
+    private int getThreat(Region region) {
+        int strongest = 0;
+        boolean bordersEnemy = false;
+        for (Region neighbor : region.getNeighbors()) {
+            if (neighbor.ownedByPlayer(enemyName)) {
+                bordersEnemy = true;
+                strongest = Math.max(strongest, neighbor.getArmies() - 1);
+            }
+        }
+        return bordersEnemy ? strongest + enemyIncome : 0;
+    }
+
+    /**
+     * @return my neighbor of the target with the most armies, the one the greedy plan attacks from
+     */
+    private Region getStrongestNeighbor(Region target) {
+        Region strongest = null;
+        for (Region neighbor : target.getNeighbors())
+            if (neighbor.ownedByPlayer(myName) && (strongest == null || neighbor.getArmies() > strongest.getArmies()))
+                strongest = neighbor;
+        return strongest;
+    }
+}
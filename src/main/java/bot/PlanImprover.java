@@ -0,0 +1,17 @@
+package bot;
+
+/**
+ * One improvement step of an {@link AnytimePlanner}. Implementations should check the Deadline regularly
+ * and return early when it expires.
+ * @param <T> the type of plan
+ */
+public interface PlanImprover<T> {
+
+    /**
+     * @param plan the best plan found so far
+     * @param deadline the time by which the step has to return
+     * @return a better plan, or null if no better plan was found
+     */
+    public T improve(T plan, Deadline deadline);
+
+}
@@ -0,0 +1,285 @@
+package bot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the engine protocol line by line straight from a byte stream. Numbers are parsed in place and
+ * repeated words such as commands and player names are returned as cached Strings, so reading a line
+ * allocates nothing once the buffers have grown to the longest line.
+ * <p>
+ * Tokens are separated by spaces. Numbers inside a token can also be separated by commas, as in the
+ * neighbor lists of {@code setup_map neighbors}, see {@link #hasNextListElement()}.
+ */
+public class ProtocolReader {
+    private static final int MAX_CACHED_WORDS = 64;
+
+    private final InputStream in;
+    private final byte[] chunk = new byte[1 << 16];
+    private int chunkPosition;
+    private int chunkLimit;
+    private boolean endOfStream;
+
+    private byte[] line = new byte[1 << 12];
+    private int lineLength;
+    private int position;
+
+    private final String[] cachedWords = new String[MAX_CACHED_WORDS];
+    private final byte[][] cachedWordBytes = new byte[MAX_CACHED_WORDS][];
+    private int cachedWordCount;
+
+    public ProtocolReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Moves to the next line that isn't blank.
+     * @return True if there is such a line, false at the end of the stream
+     */
+    public boolean nextLine() throws IOException {
+        while (readLine()) {
+            position = 0;
+            skipSpaces();
+            if (position < lineLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if the current line has another token, false otherwise
+     */
+    public boolean hasNextToken() {
+        skipSpaces();
+        return position < lineLength;
+    }
+
+    /**
+     * @return The next token of the current line. Short tokens are cached and returned as the same String
+     * every time they occur.
+     */
+    public String nextToken() {
+        skipSpaces();
+        int start = position;
+        while (position < lineLength && line[position] != ' ') {
+            position++;
+        }
+        if (start == position) {
+            throw new IllegalStateException("No more tokens on line");
+        }
+        return word(start, position);
+    }
+
+    /**
+     * Reads the next token if it is the given keyword.
+     * @param keyword an ASCII word
+     * @return True if the token matched and was consumed, false otherwise
+     */
+    public boolean nextTokenIs(String keyword) {
+        skipSpaces();
+        int length = keyword.length();
+        if (position + length > lineLength || (position + length < lineLength && line[position + length] != ' ')) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (line[position + i] != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        position += length;
+        return true;
+    }
+
+    /**
+     * Skips the next token of the current line.
+     */
+    public void skipToken() {
+        skipSpaces();
+        while (position < lineLength && line[position] != ' ') {
+            position++;
+        }
+    }
+
+    /**
+     * Skips the rest of the current token up to the next space, e.g. the elements of a list following a malformed
+     * one. Nothing is skipped between tokens, so calling this after any failed read always makes progress.
+     */
+    public void skipToTokenEnd() {
+        while (position < lineLength && line[position] != ' ') {
+            position++;
+        }
+    }
+
+    /**
+     * Parses the next number of the current line. The number ends at a space, a comma or the end of the line,
+     * a trailing comma is left for {@link #hasNextListElement()}.
+     * @throws NumberFormatException if the token isn't a number, the token is skipped in that case
+     */
+    public int nextInt() {
+        return (int) nextNumber(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the next number of the current line as a long, see {@link #nextInt()}
+     */
+    public long nextLong() {
+        return nextNumber(Long.MAX_VALUE);
+    }
+
+    /**
+     * Consumes a comma directly following the last number.
+     * @return True if another number of the same comma separated list follows, false otherwise
+     */
+    public boolean hasNextListElement() {
+        if (position < lineLength && line[position] == ',') {
+            position++;
+            return position < lineLength && line[position] != ' ';
+        }
+        return false;
+    }
+
+    /**
+     * @return The current line as a String, for error messages
+     */
+    public String getLine() {
+        return new String(line, 0, lineLength, StandardCharsets.US_ASCII).trim();
+    }
+
+    /**
+     * @return the buffer holding the bytes of the current line, only valid until the next line is read
+     */
+    public byte[] getLineBuffer() {
+        return line;
+    }
+
+    /**
+     * @return the number of bytes of the current line in {@link #getLineBuffer()}
+     */
+    public int getLineLength() {
+        return lineLength;
+    }
+
+    private long nextNumber(long max) {
+        skipSpaces();
+        int start = position;
+        boolean negative = position < lineLength && line[position] == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (position < lineLength && line[position] >= '0' && line[position] <= '9') {
+            if (digits < 18) {
+                value = value * 10 + (line[position] - '0');
+            }
+            digits++;
+            position++;
+        }
+        if (digits == 0 || digits > 18 || value > max || !atNumberEnd()) {
+            while (position < lineLength && line[position] != ' ' && line[position] != ',') {
+                position++;
+            }
+            throw new NumberFormatException("For input string: \"" +
+                    new String(line, start, position - start, StandardCharsets.US_ASCII) + "\"");
+        }
+        return negative ? -value : value;
+    }
+
+    private boolean atNumberEnd() {
+        return position == lineLength || line[position] == ' ' || line[position] == ',';
+    }
+
+    private void skipSpaces() {
+        while (position < lineLength && line[position] == ' ') {
+            position++;
+        }
+    }
+
+    private String word(int start, int end) {
+        int length = end - start;
+        for (int i = 0; i < cachedWordCount; i++) {
+            byte[] bytes = cachedWordBytes[i];
+            if (bytes.length == length && regionMatches(bytes, start)) {
+                return cachedWords[i];
+            }
+        }
+        String word = new String(line, start, length, StandardCharsets.US_ASCII);
+        if (cachedWordCount < MAX_CACHED_WORDS && length <= 32) {
+            cachedWordBytes[cachedWordCount] = Arrays.copyOfRange(line, start, end);
+            cachedWords[cachedWordCount++] = word;
+        }
+        return word;
+    }
+
+    private boolean regionMatches(byte[] bytes, int start) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != line[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the next line without its line terminator into the line buffer.
+     * @return False if the stream ended before any byte of a new line was read
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean readAny = false;
+        while (true) {
+            if (chunkPosition == chunkLimit && !fillChunk()) {
+                return readAny;
+            }
+            readAny = true;
+            int lineEnd = chunkPosition;
+            while (lineEnd < chunkLimit && chunk[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            appendToLine(chunkPosition, lineEnd);
+            if (lineEnd < chunkLimit) {
+                chunkPosition = lineEnd + 1;
+                break;
+            }
+            chunkPosition = chunkLimit;
+        }
+        while (lineLength > 0 && (line[lineLength - 1] == '\r')) {
+            lineLength--;
+        }
+        for (int i = 0; i < lineLength; i++) { //tabs separate tokens just like spaces
+            if (line[i] == '\t') {
+                line[i] = ' ';
+            }
+        }
+        return true;
+    }
+
+    private void appendToLine(int from, int to) {
+        int length = to - from;
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(chunk, from, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private boolean fillChunk() throws IOException {
+        if (endOfStream) {
+            return false;
+        }
+        int read = in.read(chunk, 0, chunk.length);
+        while (read == 0) {
+            read = in.read(chunk, 0, chunk.length);
+        }
+        if (read < 0) {
+            endOfStream = true;
+            return false;
+        }
+        chunkPosition = 0;
+        chunkLimit = read;
+        return true;
+    }
+}
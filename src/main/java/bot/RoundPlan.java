@@ -0,0 +1,33 @@
+package bot;
+
+import move.AttackTransferMove;
+import move.PlaceArmiesMove;
+
+import java.util.List;
+
+/**
+ * The moves planned at the start of a round: where to place armies and which attacks these armies are
+ * placed for. Transfers are planned separately in the attack/transfer phase.
+ */
+public class RoundPlan {
+    private final List<PlaceArmiesMove> placeArmiesMoves;
+    private final List<AttackTransferMove> attackMoves;
+
+    public RoundPlan(List<PlaceArmiesMove> placeArmiesMoves, List<AttackTransferMove> attackMoves) {
+        this.placeArmiesMoves = placeArmiesMoves;
+        this.attackMoves = attackMoves;
+    }
+
+    public List<PlaceArmiesMove> getPlaceArmiesMoves() {
+        return placeArmiesMoves;
+    }
+
+    public List<AttackTransferMove> getAttackMoves() {
+        return attackMoves;
+    }
+
+    @Override
+    public String toString() {
+        return "RoundPlan: [placements: " + placeArmiesMoves + ", attacks: " + attackMoves + " ]";
+    }
+}
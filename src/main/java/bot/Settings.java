@@ -2,10 +2,17 @@ package bot;
 
 /**
  * Created by johnunderwood on 7/13/15.
+ * <p>
+ * The first five values are the defaults of {@link BotParameters}, use those to read them.
  */
 public class Settings {
     public static final double ENEMY_OWNERSHIP_FACTOR = .8;
     public static final int WASTELAND_ARMIES = 6;
     public static final int NORMAL_ARMIES = 2;
     public static final int EXTRA_EFFORT_FACTOR = 3;
+    public static final double ATTACK_WIN_PROBABILITY = .6; //attacks are sized to take their target at least this often
+    public static final int COMBAT_TABLE_MAX_ARMIES = 200; //battles up to this size use exact outcome tables
+    public static final double TIMEBANK_SPEND_FRACTION = .1; //share of the saved up timebank a single move may use
+    public static final long DEADLINE_SAFETY_MARGIN = 100; //ms kept back for writing the response
+    public static final int ENEMY_BELIEF_MAX_AGE = 10; //rounds a Region in the fog is still believed to be the enemy's
 }
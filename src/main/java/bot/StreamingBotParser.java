@@ -0,0 +1,138 @@
+package bot;
+
+import map.Region;
+import move.AttackTransferMove;
+import move.Move;
+import move.MoveWriter;
+import move.PlaceArmiesMove;
+import trace.TraceFormat;
+import trace.TraceRecorder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Drop in replacement for {@link BotParser} that reads the protocol through a {@link ProtocolReader}.
+ * Commands are dispatched into the BotState token by token, without splitting lines into String arrays.
+ * <p>
+ * With a {@link TraceRecorder} set, every command and every answer together with the time the bot took is
+ * recorded, so a game can be replayed with {@link trace.TraceReplay}.
+ */
+public class StreamingBotParser {
+
+    final ProtocolReader in;
+
+    final MoveWriter out;
+
+    final Bot bot;
+
+    BotState currentState;
+
+    TraceRecorder recorder;
+
+    public StreamingBotParser(Bot bot) {
+        this(bot, System.in, System.out);
+    }
+
+    public StreamingBotParser(Bot bot, InputStream in) {
+        this(bot, in, System.out);
+    }
+
+    public StreamingBotParser(Bot bot, InputStream in, OutputStream out) {
+        this.in = new ProtocolReader(in);
+        this.out = new MoveWriter(out);
+        this.bot = bot;
+        this.currentState = new BotState();
+    }
+
+    public void setRecorder(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public void run() {
+        try {
+            while (in.nextLine()) {
+                bot.stopPondering();
+                if (recorder != null)
+                    recorder.recordCommand(currentState.getRoundNumber(), in.getLineBuffer(), in.getLineLength());
+                dispatch();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void dispatch() throws IOException {
+        if (in.nextTokenIs("pick_starting_region")) //pick which regions you want to start with
+        {
+            long timeOut = nextTimeOut();
+            long start = System.nanoTime();
+            currentState.setPickableStartingRegions(in);
+            Region startingRegion = bot.getStartingRegion(currentState, timeOut);
+
+            out.writeLine(startingRegion.getId());
+            record(TraceFormat.PICK_STARTING_REGION, start);
+        } else if (in.nextTokenIs("go")) {
+            //we need to do a move
+            if (in.nextTokenIs("place_armies")) {
+                //place armies
+                long start = System.nanoTime();
+                List<PlaceArmiesMove> placeArmiesMoves = bot.getPlaceArmiesMoves(currentState, nextTimeOut());
+                out.writeMoves(placeArmiesMoves);
+                record(TraceFormat.PLACE_ARMIES, start);
+            } else if (in.nextTokenIs("attack/transfer")) {
+                //attack/transfer
+                long start = System.nanoTime();
+                List<AttackTransferMove> attackTransferMoves = bot.getAttackTransferMoves(currentState, nextTimeOut());
+                out.writeMoves(attackTransferMoves);
+                record(TraceFormat.ATTACK_TRANSFER, start);
+            } else {
+                out.writeMoves(Collections.<Move>emptyList());
+            }
+        } else if (in.nextTokenIs("settings")) {
+            //update settings
+            currentState.updateSettings(in);
+        } else if (in.nextTokenIs("setup_map")) {
+            //initial full map is given
+            currentState.setupMap(in);
+        } else if (in.nextTokenIs("update_map")) {
+            //all visible regions are given
+            currentState.updateMap(in);
+        } else if (in.nextTokenIs("opponent_moves")) {
+            //all visible opponent moves are given
+            currentState.readOpponentMoves(in);
+        } else {
+            System.err.printf("Unable to parse line \"%s\"\n", in.getLine());
+        }
+    }
+
+    /**
+     * @return the timeout of a request, or the time per move if it is missing or malformed, so the request is
+     * still answered
+     */
+    private long nextTimeOut() {
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            System.err.printf("Unable to parse time out in \"%s\", using the time per move: %s\n", in.getLine(),
+                    e.getMessage());
+            in.skipToTokenEnd();
+            return currentState.getTimePerMove();
+        }
+    }
+
+    /**
+     * Records the answer just written and flushes the trace, so a bot that is killed leaves a readable trace.
+     */
+    private void record(int type, long start) throws IOException {
+        if (recorder != null) {
+            recorder.recordAnswer(type, currentState.getRoundNumber(), System.nanoTime() - start,
+                    out.getLineBuffer(), out.getLineLength());
+            recorder.flush();
+        }
+    }
+}
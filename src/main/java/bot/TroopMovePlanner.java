@@ -1,127 +1,131 @@
 package bot;
 
 import log.Logger;
+import map.BoardSnapshot;
+import map.DistanceField;
+import map.Frontier;
 import map.GameBoard;
+import map.MinCostFlow;
 import map.Region;
+import map.RegionGraph;
 import move.AttackTransferMove;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Created by johnunderwood on 7/13/15.
  */
 public class TroopMovePlanner {
     private static final Logger log = new Logger(TroopMovePlanner.class.getSimpleName());
+    private static final int OVERFLOW_COST = 3; //hops armies go out of their way to reach a threatened Region
     private final String myName;
     private final String enemyName;
     private final GameBoard gameBoard;
+    private final Frontier frontier;
+    private final DistanceField distanceToBorder; //recomputed only when an owner changes
 
     public TroopMovePlanner(BotState state) {
         this.myName = state.getMyPlayerName();
         this.enemyName = state.getOpponentPlayerName();
         this.gameBoard = state.getVisibleGameBoard();
+        this.frontier = gameBoard.getFrontier(myName, enemyName);
+        this.distanceToBorder = new DistanceField(gameBoard, frontier::isBorder, r -> r.ownedByPlayer(myName));
     }
 
     public List<AttackTransferMove> getTransferMoves() {
-        List<Region> sourceTransferRegions = gameBoard.getRegions().stream()
-                .filter(r ->
-                        r.getArmies() > 1 && r.ownedByPlayer(myName) &&
-                                r.getNeighbors().stream().allMatch(n ->
-                                        n.ownedByPlayer(myName) || !n.ownedByPlayer(enemyName)))
-                .collect(Collectors.toList());
-        List<AttackTransferMove> transferMoves = new ArrayList<>();
-
-        if (sourceTransferRegions.size() > 0) {
-            Map<Region, Integer> distanceToEnemyMap = getDistanceToEnemyPlayer();
-            log.trace("Distance To Enemies: %s", distanceToEnemyMap);
-            transferMoves.addAll(getMoves(sourceTransferRegions, distanceToEnemyMap));
+        return getTransferMoves(BoardSnapshot.of(gameBoard));
+    }
 
-            sourceTransferRegions.removeAll(transferMoves.stream()
-                    .map(AttackTransferMove::getFromRegion)
-                    .collect(Collectors.toList()));
+    /**
+     * Routes the spare armies of all Regions that don't border the enemy towards the front in one min cost
+     * flow over my Regions, see {@link MinCostFlow}. Each hop costs 1. A Region bordering the enemy demands the
+     * armies it lacks against the strongest enemy stack next to it at no cost, and takes any number more at
+     * OVERFLOW_COST, so armies go out of their way a few hops to fill a threatened Region before they
+     * pile up at the closest one. Without a reachable enemy the armies go to the closest border Region. My
+     * Regions that can't reach a border aren't part of the network, their armies stay. Armies only move one
+     * hop a round, so the moves are the first hop of the flow leaving each Region, up to its own spare armies.
+     * @param armies the armies on the board after the moves already planned this round
+     * @return transfers of spare armies towards the front
+     */
+    public List<AttackTransferMove> getTransferMoves(BoardSnapshot armies) {
+        List<Region> owned = new ArrayList<>();
+        for (Region region : frontier.getOwnedRegions())
+            if (distanceToBorder.isReachable(region))
+                owned.add(region);
+        int regionCount = owned.size();
+        int source = regionCount;
+        int sink = regionCount + 1;
+        int[] index = new int[gameBoard.getRegionIdBound()];
+        Arrays.fill(index, -1);
+        int[] supply = new int[regionCount];
+        int totalSupply = 0;
+        for (int i = 0; i < regionCount; i++) {
+            Region region = owned.get(i);
+            index[region.getId()] = i;
+            if (armies.getArmies(region) > 1 && !frontier.bordersEnemy(region)) {
+                supply[i] = armies.getArmies(region) - 1;
+                totalSupply += supply[i];
+            }
         }
-
-        if (sourceTransferRegions.size() > 0) {
-            Map<Region, Integer> distanceToBorderMap = getDistanceToBorder();
-            log.trace("Distance To Border: %s", distanceToBorderMap);
-            transferMoves.addAll(getMoves(sourceTransferRegions, distanceToBorderMap));
+        if (totalSupply == 0) {
+            return new ArrayList<>();
         }
 
-        return transferMoves;
-    }
+        MinCostFlow network = new MinCostFlow(regionCount + 2);
+        int borderCost = regionCount + OVERFLOW_COST + 1; //more than any path to the enemy
+        RegionGraph graph = gameBoard.getGraph();
+        int[] hopStart = new int[regionCount + 1]; //the hop edges of Region i are hops[hopStart[i]..hopStart[i+1])
+        int[] hops = new int[2 * graph.getEdgeCount()];
+        for (int i = 0; i < regionCount; i++) {
+            Region region = owned.get(i);
+            if (supply[i] > 0)
+                network.addEdge(source, i, supply[i], 0);
+            if (frontier.bordersEnemy(region)) {
+                int need = getThreat(region) - armies.getArmies(region);
+                if (need > 0)
+                    network.addEdge(i, sink, need, 0);
+                network.addEdge(i, sink, totalSupply, OVERFLOW_COST);
+            } else if (frontier.isBorder(region)) {
+                network.addEdge(i, sink, totalSupply, borderCost);
+            }
+            int hopCount = hopStart[i];
+            for (int k = graph.neighborStart(region.getId()); k < graph.neighborEnd(region.getId()); k++) {
+                int neighbor = index[graph.neighborAt(k)];
+                if (neighbor >= 0)
+                    hops[hopCount++] = network.addEdge(i, neighbor, totalSupply, 1);
+            }
+            hopStart[i + 1] = hopCount;
+        }
+        network.solve(source, sink, totalSupply);
+        log.debug("Routed %d armies at cost %d", totalSupply, network.getTotalCost());
 
-    public List<AttackTransferMove> getMoves(List<Region> sourceRegions, Map<Region, Integer> dMap) {
         List<AttackTransferMove> transferMoves = new ArrayList<>();
-
-        for (Region source : sourceRegions) {
-            List<Region> destinations = source.getNeighbors().stream()
-                    .filter(r -> dMap.containsKey(r))
-                    .collect(Collectors.toList());
-            if (destinations.size() > 0) {
-                destinations.sort((r1, r2) -> dMap.get(r1) - dMap.get(r2));
-                log.trace("Destination list: " + destinations);
-                Region dest = destinations.get(0);
-                if (dMap.get(dest) < dMap.get(source)) {
-                    //if some destinations directly border the enemy transfer to dest with most armies
-                    int i = 1;
-                    while (i < destinations.size() && dMap.get(dest) == dMap.get(destinations.get(i))) {
-                        if (dest.getArmies() < destinations.get(i).getArmies()) {
-                            dest = destinations.get(i);
-                        }
-                        i++;
-                    }
-
-                    AttackTransferMove move = new AttackTransferMove(myName, source, dest, source.getArmies() - 1);
+        for (int i = 0; i < regionCount; i++) {
+            int left = supply[i];
+            for (int h = hopStart[i]; left > 0 && h < hopStart[i + 1]; h++) {
+                int sent = Math.min(left, network.getFlow(hops[h]));
+                if (sent > 0) {
+                    AttackTransferMove move = new AttackTransferMove(myName, owned.get(i),
+                            owned.get(network.getTarget(hops[h])), sent);
                     log.info("Moving Troops: %s", move);
                     transferMoves.add(move);
+                    left -= sent;
                 }
             }
         }
-
         return transferMoves;
     }
 
-    public Map<Region, Integer> getDistanceToEnemyPlayer() {
-        return getDistanceMap(n -> n.ownedByPlayer(enemyName));
-    }
-
-    public Map<Region, Integer> getDistanceToBorder() {
-        return getDistanceMap(n -> !n.ownedByPlayer(myName));
-    }
-
-    public Map<Region, Integer> getDistanceMap(Predicate<Region> regionPredicate) {
-        List<Region> enemyBorderingRegions = gameBoard.getRegions().stream()
-                .filter(r -> r.ownedByPlayer(myName))
-                .filter(r -> r.getNeighbors().stream().anyMatch(regionPredicate))
-                .collect(Collectors.toList());
-        Map<Region, Integer> dMap = new HashMap<>();
-
-        for (Region r : enemyBorderingRegions) {
-            dMap.put(r, 0);
-        }
-
-        for (Region r : enemyBorderingRegions) {
-            getDistanceMapHelper(dMap, r);
-        }
-
-        return dMap;
-    }
-
-    private void getDistanceMapHelper(Map<Region, Integer> dMap, Region r) {
-        List<Region> ownedNeighbors = r.getNeighbors().stream()
-                .filter(n -> n.ownedByPlayer(myName)).collect(Collectors.toList());
-        int rDistance = dMap.get(r);
-
-        for (Region neighbor : ownedNeighbors) {
-            if (!dMap.containsKey(neighbor) || dMap.get(neighbor) > rDistance + 1) {
-                dMap.put(neighbor, rDistance + 1);
-                getDistanceMapHelper(dMap, neighbor);
-            }
-        }
+    /**
+     * @return the armies of the strongest enemy stack next to the Region
+     */
+    private int getThreat(Region region) {
+        int strongest = 0;
+        for (Region neighbor : region.getNeighbors())
+            if (neighbor.ownedByPlayer(enemyName))
+                strongest = Math.max(strongest, neighbor.getArmies());
+        return strongest;
     }
 }
@@ -0,0 +1,328 @@
+package engine;
+
+import bot.Bot;
+import bot.BotState;
+import bot.CombatModel;
+import log.Logger;
+import map.Region;
+import map.RegionGraph;
+import move.AttackTransferMove;
+import move.PlaceArmiesMove;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static bot.Settings.*;
+
+/**
+ * Plays one game between two Bots in process, following the rules of the Warlight AI Challenge engine.
+ * <p>
+ * The bots are called directly with a BotState of their own that is fed the same commands the engine would
+ * send over stdin: settings, setup_map, pick_starting_region, update_map with the Regions they can see and
+ * opponent_moves with the moves of the opponent they could see. Each round both bots place their armies,
+ * then their attacks and transfers are executed alternately, starting with a random player. Armies can only
+ * move once per round and every Region keeps at least one army. Battles are decided like on the server:
+ * every attacking army destroys a defending army with a probability of 60%, every defending army destroys
+ * an attacking army with a probability of 70%.
+ */
+public class Game {
+    public static final int NEUTRAL = 0;
+    public static final int PLAYER_1 = 1;
+    public static final int PLAYER_2 = 2;
+    private static final String[] NAMES = {"neutral", "player1", "player2"};
+    private static Logger log = new Logger(Game.class.getSimpleName());
+    private static final CombatModel combatModel = new CombatModel(COMBAT_TABLE_MAX_ARMIES);
+
+    private final GameMap map;
+    private final GameSettings settings;
+    private final Random random;
+    private final Bot[] bots = new Bot[3];
+    private final BotState[] states = new BotState[3];
+    private final int[] owner;
+    private final int[] armies;
+    private final int[] movable; //armies that can still attack or transfer this round
+    private final long[] timebank = new long[3];
+    private final long[][] roundNanos = new long[3][];
+    private final int[] timeouts = new int[3];
+    private final List<List<String>> visibleOpponentMoves = new ArrayList<>(); //opponent_moves per player
+    private int round;
+
+    public Game(GameMap map, Bot bot1, Bot bot2, GameSettings settings, long seed) {
+        this.map = map;
+        this.settings = settings;
+        this.random = new Random(seed);
+        this.bots[PLAYER_1] = bot1;
+        this.bots[PLAYER_2] = bot2;
+        this.owner = new int[map.getIdBound()];
+        this.armies = new int[map.getIdBound()];
+        this.movable = new int[map.getIdBound()];
+        for (int player = 0; player <= PLAYER_2; player++) {
+            states[player] = new BotState();
+            roundNanos[player] = new long[settings.getMaxRounds()];
+            timebank[player] = settings.getTimebank();
+            visibleOpponentMoves.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * @return the result after one player lost all Regions or the last round was played
+     */
+    public GameResult play() {
+        for (int player = PLAYER_1; player <= PLAYER_2; player++)
+            setUp(player);
+        pickStartingRegions();
+
+        int winner = GameResult.DRAW;
+        while (round < settings.getMaxRounds() && winner == GameResult.DRAW) {
+            round++;
+            playRound();
+            int regions1 = countRegions(PLAYER_1);
+            int regions2 = countRegions(PLAYER_2);
+            if (regions1 == 0 || regions2 == 0)
+                winner = regions1 == 0 ? PLAYER_2 : PLAYER_1;
+        }
+
+        int[] regions = {0, countRegions(PLAYER_1), countRegions(PLAYER_2)};
+        if (winner == GameResult.DRAW && regions[PLAYER_1] != regions[PLAYER_2])
+            winner = regions[PLAYER_1] > regions[PLAYER_2] ? PLAYER_1 : PLAYER_2;
+        return new GameResult(winner, round, regions, roundNanos, timeouts);
+    }
+
+    private void setUp(int player) {
+        BotState state = states[player];
+        setting(state, "timebank", settings.getTimebank());
+        setting(state, "time_per_move", settings.getTimePerMove());
+        setting(state, "max_rounds", settings.getMaxRounds());
+        setting(state, "your_bot", NAMES[player]);
+        setting(state, "opponent_bot", NAMES[opponent(player)]);
+        for (String[] command : map.setupCommands())
+            state.setupMap(command);
+    }
+
+    private static void setting(BotState state, String key, Object value) {
+        state.updateSettings(key, new String[]{"settings", key, String.valueOf(value)});
+    }
+
+    /**
+     * One Region of every SuperRegion that isn't a wasteland can be picked, the players pick in the order
+     * ABBAABBA. Regions that aren't picked stay neutral.
+     */
+    private void pickStartingRegions() {
+        List<Integer> pickable = new ArrayList<>();
+        List<List<Integer>> candidates = new ArrayList<>();
+        for (int superRegionId = 0; superRegionId < map.getSuperRegionIdBound(); superRegionId++)
+            candidates.add(new ArrayList<>());
+        for (int id : map.getRegionIds()) {
+            owner[id] = NEUTRAL;
+            armies[id] = map.isWasteland(id) ? settings.getWastelandArmies() : settings.getNeutralArmies();
+            if (!map.isWasteland(id))
+                candidates.get(map.getSuperRegion(id)).add(id);
+        }
+        for (List<Integer> superRegionCandidates : candidates)
+            if (!superRegionCandidates.isEmpty())
+                pickable.add(superRegionCandidates.get(random.nextInt(superRegionCandidates.size())));
+
+        int picks = Math.min(settings.getStartingPickAmount() * 2, pickable.size() / 2 * 2);
+        for (int pick = 0; pick < picks; pick++) {
+            int player = pick % 4 == 0 || pick % 4 == 3 ? PLAYER_1 : PLAYER_2;
+            List<String> command = GameMap.command("pick_starting_region", String.valueOf(timebank[player]));
+            for (int id : pickable)
+                command.add(Integer.toString(id));
+            BotState state = states[player];
+            state.setPickableStartingRegions(command.toArray(new String[command.size()]));
+
+            Region choice = call(player, () -> bots[player].getStartingRegion(state, timebank[player]));
+            Integer picked = choice != null && pickable.contains(choice.getId()) ?
+                    Integer.valueOf(choice.getId()) : pickable.get(random.nextInt(pickable.size()));
+            pickable.remove(picked);
+            owner[picked] = player;
+            armies[picked] = settings.getStartingArmies();
+        }
+    }
+
+    private void playRound() {
+        List<List<PlaceArmiesMove>> placements = new ArrayList<>(Collections.nCopies(3, null));
+        List<List<AttackTransferMove>> attackTransfers = new ArrayList<>(Collections.nCopies(3, null));
+        int[] income = new int[3];
+
+        for (int player = PLAYER_1; player <= PLAYER_2; player++) {
+            income[player] = income(player);
+            BotState state = states[player];
+            setting(state, "starting_armies", income[player]);
+            state.updateMap(updateMapCommand(player));
+            List<String> opponentMoves = visibleOpponentMoves.get(player);
+            opponentMoves.add(0, "opponent_moves");
+            state.readOpponentMoves(opponentMoves.toArray(new String[opponentMoves.size()]));
+            opponentMoves.clear();
+        }
+
+        for (int player = PLAYER_1; player <= PLAYER_2; player++) {
+            int p = player;
+            long start = System.nanoTime();
+            placements.set(player, call(player, () -> bots[p].getPlaceArmiesMoves(states[p], timebank[p])));
+            roundNanos[player][round - 1] += System.nanoTime() - start;
+        }
+        for (int player = PLAYER_1; player <= PLAYER_2; player++)
+            place(player, placements.get(player), income[player]);
+
+        for (int id : map.getRegionIds())
+            movable[id] = armies[id] - 1;
+        for (int player = PLAYER_1; player <= PLAYER_2; player++) {
+            int p = player;
+            long start = System.nanoTime();
+            attackTransfers.set(player, call(player, () -> bots[p].getAttackTransferMoves(states[p], timebank[p])));
+            roundNanos[player][round - 1] += System.nanoTime() - start;
+        }
+
+        List<AttackTransferMove> moves1 = orEmpty(attackTransfers.get(PLAYER_1));
+        List<AttackTransferMove> moves2 = orEmpty(attackTransfers.get(PLAYER_2));
+        boolean firstPlayer1 = random.nextBoolean();
+        for (int i = 0; i < Math.max(moves1.size(), moves2.size()); i++) {
+            if (firstPlayer1 && i < moves1.size())
+                attackTransfer(PLAYER_1, moves1.get(i));
+            if (i < moves2.size())
+                attackTransfer(PLAYER_2, moves2.get(i));
+            if (!firstPlayer1 && i < moves1.size())
+                attackTransfer(PLAYER_1, moves1.get(i));
+        }
+    }
+
+    /**
+     * Calls a bot with its timebank, counting answers that take longer than the timebank as timeouts.
+     * @return the answer, or null if the bot failed or timed out
+     */
+    private <T> T call(int player, Supplier<T> request) {
+        timebank[player] = Math.min(timebank[player] + settings.getTimePerMove(), settings.getTimebank());
+        long start = System.nanoTime();
+        T answer;
+        try {
+            answer = request.get();
+        } catch (RuntimeException ex) {
+            log.error("Exception in " + NAMES[player] + " in round " + round + ".", ex);
+            answer = null;
+        }
+        long millis = (System.nanoTime() - start) / 1000000L;
+        if (millis > timebank[player] && settings.isEnforceTimebank()) {
+            timeouts[player]++;
+            timebank[player] = 0;
+            return null;
+        }
+        timebank[player] = Math.max(0, timebank[player] - millis);
+        return answer;
+    }
+
+    private static <T> List<T> orEmpty(List<T> moves) {
+        return moves == null ? Collections.<T>emptyList() : moves;
+    }
+
+    private void place(int player, List<PlaceArmiesMove> moves, int income) {
+        int armiesLeft = income;
+        for (PlaceArmiesMove move : orEmpty(moves)) {
+            if (move == null || move.getRegion() == null)
+                continue;
+            int id = move.getRegion().getId();
+            int placed = Math.min(move.getArmies(), armiesLeft);
+            if (!isRegion(id) || owner[id] != player || placed <= 0)
+                continue;
+            armies[id] += placed;
+            armiesLeft -= placed;
+            if (isVisible(opponent(player), id))
+                record(opponent(player), NAMES[player], "place_armies", id, placed);
+        }
+    }
+
+    private void attackTransfer(int player, AttackTransferMove move) {
+        if (move == null || move.getFromRegion() == null || move.getToRegion() == null)
+            return;
+        int from = move.getFromRegion().getId();
+        int to = move.getToRegion().getId();
+        if (!isRegion(from) || !isRegion(to) || owner[from] != player || !map.getGraph().isNeighbor(from, to))
+            return;
+        int moved = Math.min(move.getArmies(), Math.min(movable[from], armies[from] - 1));
+        if (moved <= 0)
+            return;
+        int opponent = opponent(player);
+        if (isVisible(opponent, from) || isVisible(opponent, to))
+            record(opponent, NAMES[player], "attack/transfer", from, to, moved);
+
+        movable[from] -= moved;
+        armies[from] -= moved;
+        if (owner[to] == player) {
+            armies[to] += moved;
+            return;
+        }
+        int defenders = armies[to];
+        int defendersKilled = Math.min(combatModel.sampleAttackerKills(moved, random.nextDouble()), defenders);
+        int attackersKilled = Math.min(combatModel.sampleDefenderKills(defenders, random.nextDouble()), moved);
+        if (defendersKilled == defenders && attackersKilled < moved) {
+            owner[to] = player;
+            armies[to] = moved - attackersKilled;
+            movable[to] = 0;
+        } else {
+            armies[from] += moved - attackersKilled;
+            armies[to] = Math.max(defenders - defendersKilled, 1);
+        }
+    }
+
+    private void record(int player, Object... words) {
+        List<String> moves = visibleOpponentMoves.get(player);
+        for (Object word : words)
+            moves.add(String.valueOf(word));
+    }
+
+    private String[] updateMapCommand(int player) {
+        List<String> command = GameMap.command("update_map");
+        for (int id : map.getRegionIds()) {
+            if (isVisible(player, id)) {
+                command.add(Integer.toString(id));
+                command.add(NAMES[owner[id]]);
+                command.add(Integer.toString(armies[id]));
+            }
+        }
+        return command.toArray(new String[command.size()]);
+    }
+
+    /**
+     * @return True if the player owns the Region or one of its neighbors, false otherwise
+     */
+    private boolean isVisible(int player, int id) {
+        if (owner[id] == player)
+            return true;
+        RegionGraph graph = map.getGraph();
+        for (int k = graph.neighborStart(id); k < graph.neighborEnd(id); k++)
+            if (owner[graph.neighborAt(k)] == player)
+                return true;
+        return false;
+    }
+
+    private boolean isRegion(int id) {
+        return id >= 0 && id < owner.length && map.getSuperRegion(id) > 0;
+    }
+
+    private int income(int player) {
+        int[] owned = new int[map.getSuperRegionIdBound()];
+        for (int id : map.getRegionIds())
+            if (owner[id] == player)
+                owned[map.getSuperRegion(id)]++;
+        int income = settings.getBaseIncome();
+        for (int superRegionId = 1; superRegionId < owned.length; superRegionId++)
+            if (owned[superRegionId] > 0 && owned[superRegionId] == map.getSuperRegionSize(superRegionId))
+                income += map.getSuperRegionReward(superRegionId);
+        return income;
+    }
+
+    private int countRegions(int player) {
+        int count = 0;
+        for (int id : map.getRegionIds())
+            if (owner[id] == player)
+                count++;
+        return count;
+    }
+
+    private static int opponent(int player) {
+        return player == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+    }
+}
@@ -0,0 +1,231 @@
+package engine;
+
+import bot.ProtocolReader;
+import log.Logger;
+import map.RegionGraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The fixed layout of a map: SuperRegions with their rewards, Regions with their SuperRegion, the connections
+ * and the wastelands. Maps are read from setup_map commands as the engine sends them, or made by a
+ * {@link MapGenerator}.
+ */
+public class GameMap {
+    private static Logger log = new Logger(GameMap.class.getSimpleName());
+    private final int[] superRegionRewards; //by SuperRegion id, 0 for unused ids
+    private final int[] superRegionOf; //by Region id, 0 for unused ids
+    private final int[] superRegionSizes;
+    private final int[] regionIds;
+    private final RegionGraph graph;
+    private final BitSet wastelands;
+
+    GameMap(int[] superRegionRewards, int[] superRegionOf, RegionGraph graph, BitSet wastelands) {
+        this.superRegionRewards = superRegionRewards;
+        this.superRegionOf = superRegionOf;
+        this.regionIds = idsOf(superRegionOf);
+        this.superRegionSizes = new int[superRegionRewards.length];
+        for (int id : regionIds)
+            superRegionSizes[superRegionOf[id]]++;
+        this.graph = graph;
+        this.wastelands = wastelands;
+    }
+
+    /**
+     * Reads the setup_map commands of a file, all other lines are ignored.
+     */
+    public static GameMap load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * @param commands setup_map commands, one per line
+     */
+    public static GameMap parse(String commands) {
+        try {
+            return read(new ByteArrayInputStream(commands.getBytes(StandardCharsets.US_ASCII)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static GameMap read(InputStream input) throws IOException {
+        ProtocolReader in = new ProtocolReader(input);
+        int[] rewards = new int[0];
+        int[] superRegionOf = new int[0];
+        RegionGraph.Builder graph = new RegionGraph.Builder();
+        BitSet superRegionIds = new BitSet();
+        BitSet wastelands = new BitSet();
+
+        while (in.nextLine()) {
+            if (!in.nextTokenIs("setup_map"))
+                continue;
+            if (in.nextTokenIs("super_regions")) {
+                while (in.hasNextToken()) {
+                    try {
+                        int id = in.nextInt();
+                        rewards = grow(rewards, id);
+                        rewards[id] = in.nextInt();
+                        superRegionIds.set(id);
+                    } catch (RuntimeException e) {
+                        skipMalformed(in, "SuperRegion", e);
+                    }
+                }
+            } else if (in.nextTokenIs("regions")) {
+                while (in.hasNextToken()) {
+                    try {
+                        int id = in.nextInt();
+                        superRegionOf = grow(superRegionOf, id);
+                        superRegionOf[id] = in.nextInt();
+                    } catch (RuntimeException e) {
+                        skipMalformed(in, "Region", e);
+                    }
+                }
+            } else if (in.nextTokenIs("neighbors")) {
+                while (in.hasNextToken()) {
+                    try {
+                        int id = in.nextInt();
+                        do {
+                            graph.addEdge(id, in.nextInt());
+                        } while (in.hasNextListElement());
+                    } catch (RuntimeException e) {
+                        skipMalformed(in, "neighbors", e); //the rest of the list, the reader would stay on its comma
+                    }
+                }
+            } else if (in.nextTokenIs("wastelands")) {
+                while (in.hasNextToken()) {
+                    try {
+                        wastelands.set(in.nextInt());
+                    } catch (RuntimeException e) {
+                        skipMalformed(in, "wasteland", e);
+                    }
+                }
+            }
+        }
+        for (int id : idsOf(superRegionOf)) {
+            if (!superRegionIds.get(superRegionOf[id]))
+                throw new IllegalArgumentException("Region " + id + " is in unknown SuperRegion " + superRegionOf[id]);
+        }
+        return new GameMap(rewards, superRegionOf, graph.build(), wastelands);
+    }
+
+    private static void skipMalformed(ProtocolReader in, String what, RuntimeException e) {
+        log.warn("Skipping malformed %s in \"%s\": %s", what, in.getLine(), e.getMessage());
+        in.skipToTokenEnd();
+    }
+
+    private static int[] grow(int[] array, int id) {
+        if (id <= 0)
+            throw new IllegalArgumentException("Ids start at 1, got " + id);
+        return id < array.length ? array : Arrays.copyOf(array, Math.max(id + 1, array.length * 2));
+    }
+
+    private static int[] idsOf(int[] superRegionOf) {
+        return IntStream.range(0, superRegionOf.length).filter(id -> superRegionOf[id] > 0).toArray();
+    }
+
+    /**
+     * @return the ids of all Regions in ascending order, must not be modified
+     */
+    public int[] getRegionIds() {
+        return regionIds;
+    }
+
+    public int getRegionCount() {
+        return regionIds.length;
+    }
+
+    /**
+     * @return one more than the largest Region id
+     */
+    public int getIdBound() {
+        return Math.max(superRegionOf.length, graph.getIdBound());
+    }
+
+    public int getSuperRegionIdBound() {
+        return superRegionRewards.length;
+    }
+
+    public int getSuperRegion(int regionId) {
+        return regionId < superRegionOf.length ? superRegionOf[regionId] : 0;
+    }
+
+    public int getSuperRegionReward(int superRegionId) {
+        return superRegionRewards[superRegionId];
+    }
+
+    public RegionGraph getGraph() {
+        return graph;
+    }
+
+    public boolean isWasteland(int regionId) {
+        return wastelands.get(regionId);
+    }
+
+    /**
+     * @return the setup_map commands that describe this map to a bot, as split protocol lines
+     */
+    public List<String[]> setupCommands() {
+        List<String[]> commands = new ArrayList<>();
+
+        List<String> superRegions = command("setup_map", "super_regions");
+        for (int id = 1; id < superRegionRewards.length; id++) {
+            if (superRegionSizes[id] > 0) {
+                superRegions.add(Integer.toString(id));
+                superRegions.add(Integer.toString(superRegionRewards[id]));
+            }
+        }
+        commands.add(superRegions.toArray(new String[superRegions.size()]));
+
+        List<String> regions = command("setup_map", "regions");
+        for (int id : regionIds) {
+            regions.add(Integer.toString(id));
+            regions.add(Integer.toString(superRegionOf[id]));
+        }
+        commands.add(regions.toArray(new String[regions.size()]));
+
+        List<String> neighbors = command("setup_map", "neighbors");
+        for (int id : regionIds) {
+            StringBuilder higher = new StringBuilder();
+            for (int k = graph.neighborStart(id); k < graph.neighborEnd(id); k++) {
+                int neighbor = graph.neighborAt(k);
+                if (neighbor > id)
+                    higher.append(higher.length() == 0 ? "" : ",").append(neighbor);
+            }
+            if (higher.length() > 0) {
+                neighbors.add(Integer.toString(id));
+                neighbors.add(higher.toString());
+            }
+        }
+        commands.add(neighbors.toArray(new String[neighbors.size()]));
+
+        List<String> wastelandIds = command("setup_map", "wastelands");
+        for (int id = wastelands.nextSetBit(0); id >= 0; id = wastelands.nextSetBit(id + 1))
+            wastelandIds.add(Integer.toString(id));
+        commands.add(wastelandIds.toArray(new String[wastelandIds.size()]));
+        return commands;
+    }
+
+    /**
+     * @return the number of Regions in the SuperRegion
+     */
+    public int getSuperRegionSize(int superRegionId) {
+        return superRegionSizes[superRegionId];
+    }
+
+    static List<String> command(String... words) {
+        return new ArrayList<>(Arrays.asList(words));
+    }
+}
@@ -0,0 +1,62 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a local game and how long the bots took for their rounds.
+ */
+public class GameResult {
+    public static final int DRAW = 0;
+
+    private final int winner;
+    private final int rounds;
+    private final int[] regions;
+    private final long[][] roundNanos; //per player, the time taken for placements and attacks of every round
+    private final int[] timeouts;
+
+    GameResult(int winner, int rounds, int[] regions, long[][] roundNanos, int[] timeouts) {
+        this.winner = winner;
+        this.rounds = rounds;
+        this.regions = regions;
+        this.roundNanos = roundNanos;
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * @return {@link Game#PLAYER_1}, {@link Game#PLAYER_2} or {@link #DRAW}
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return the number of Regions the player owned at the end
+     */
+    public int getRegions(int player) {
+        return regions[player];
+    }
+
+    /**
+     * @return the nanoseconds the player took for each round, placements and attacks together
+     */
+    public long[] getRoundNanos(int player) {
+        return Arrays.copyOf(roundNanos[player], rounds);
+    }
+
+    /**
+     * @return the number of requests the player didn't answer within its timebank
+     */
+    public int getTimeouts(int player) {
+        return timeouts[player];
+    }
+
+    @Override
+    public String toString() {
+        return "GameResult: [winner: " + winner + ", rounds: " + rounds + ", regions: " + regions[Game.PLAYER_1] +
+                "/" + regions[Game.PLAYER_2] + " ]";
+    }
+}
@@ -0,0 +1,107 @@
+package engine;
+
+/**
+ * The settings of a local game. The defaults are those of the Warlight AI Challenge, except for the time:
+ * without a timebank bots answer with their first plan, which keeps games fast.
+ */
+public class GameSettings {
+    private int maxRounds = 100;
+    private long timebank = 0;
+    private long timePerMove = 0;
+    private boolean enforceTimebank = false;
+    private int startingPickAmount = 3;
+    private int startingArmies = 2;
+    private int neutralArmies = 2;
+    private int wastelandArmies = 6;
+    private int baseIncome = 5;
+
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    public GameSettings setMaxRounds(int maxRounds) {
+        this.maxRounds = maxRounds;
+        return this;
+    }
+
+    public long getTimebank() {
+        return timebank;
+    }
+
+    /**
+     * @param timebank the time in milliseconds a bot starts with and can save up at most
+     */
+    public GameSettings setTimebank(long timebank) {
+        this.timebank = timebank;
+        return this;
+    }
+
+    public long getTimePerMove() {
+        return timePerMove;
+    }
+
+    /**
+     * @param timePerMove the time in milliseconds added to the timebank for every request
+     */
+    public GameSettings setTimePerMove(long timePerMove) {
+        this.timePerMove = timePerMove;
+        return this;
+    }
+
+    public boolean isEnforceTimebank() {
+        return enforceTimebank;
+    }
+
+    /**
+     * @param enforceTimebank if set, moves that take longer than the timebank are ignored like on the server
+     */
+    public GameSettings setEnforceTimebank(boolean enforceTimebank) {
+        this.enforceTimebank = enforceTimebank;
+        return this;
+    }
+
+    public int getStartingPickAmount() {
+        return startingPickAmount;
+    }
+
+    public GameSettings setStartingPickAmount(int startingPickAmount) {
+        this.startingPickAmount = startingPickAmount;
+        return this;
+    }
+
+    public int getStartingArmies() {
+        return startingArmies;
+    }
+
+    public GameSettings setStartingArmies(int startingArmies) {
+        this.startingArmies = startingArmies;
+        return this;
+    }
+
+    public int getNeutralArmies() {
+        return neutralArmies;
+    }
+
+    public GameSettings setNeutralArmies(int neutralArmies) {
+        this.neutralArmies = neutralArmies;
+        return this;
+    }
+
+    public int getWastelandArmies() {
+        return wastelandArmies;
+    }
+
+    public GameSettings setWastelandArmies(int wastelandArmies) {
+        this.wastelandArmies = wastelandArmies;
+        return this;
+    }
+
+    public int getBaseIncome() {
+        return baseIncome;
+    }
+
+    public GameSettings setBaseIncome(int baseIncome) {
+        this.baseIncome = baseIncome;
+        return this;
+    }
+}
@@ -0,0 +1,74 @@
+package engine;
+
+import bot.BotStarter;
+import log.LogConfig;
+import log.LogLevel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Plays games between two BotStarters in process and prints the results and round latencies.
+ * <p>
+ * Usage: LocalMatch [games] [regions or map file] [timebank] [time per move]. A map file contains setup_map
+ * commands as the engine sends them. Without a map file every game is played on a new generated map. The
+ * timebank defaults to 0, so the bots answer with their first plan and the move search never runs; give a
+ * timebank and a time per move, e.g. 10000 500, to play them as on the server.
+ */
+public class LocalMatch {
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        String mapArg = args.length > 1 ? args[1] : "42";
+        GameSettings settings = new GameSettings()
+                .setTimebank(args.length > 2 ? Long.parseLong(args[2]) : 0)
+                .setTimePerMove(args.length > 3 ? Long.parseLong(args[3]) : 0);
+        GameMap loadedMap = Files.exists(Paths.get(mapArg)) ? GameMap.load(Paths.get(mapArg)) : null;
+        LogConfig.getInstance().setAllLevels(LogLevel.ERROR);
+
+        int[] wins = new int[3];
+        long rounds = 0;
+        long[][] roundNanos = {new long[0], new long[0], new long[0]};
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++) {
+            GameMap map = loadedMap != null ? loadedMap : new MapGenerator(game).generate(Integer.parseInt(mapArg));
+            GameResult result;
+            try (BotStarter bot1 = new BotStarter(); BotStarter bot2 = new BotStarter()) {
+                result = new Game(map, bot1, bot2, settings, game).play();
+            }
+            wins[result.getWinner()]++;
+            rounds += result.getRounds();
+            for (int player = Game.PLAYER_1; player <= Game.PLAYER_2; player++)
+                roundNanos[player] = concat(roundNanos[player], result.getRoundNanos(player));
+        }
+        double minutes = (System.nanoTime() - start) / 6e10;
+
+        System.out.printf("%d games in %.2f minutes, %.0f games per minute, %.1f rounds per game%n",
+                games, minutes, games / minutes, (double) rounds / Math.max(1, games));
+        System.out.printf("player1 wins %d, player2 wins %d, draws %d%n",
+                wins[Game.PLAYER_1], wins[Game.PLAYER_2], wins[GameResult.DRAW]);
+        for (int player = Game.PLAYER_1; player <= Game.PLAYER_2; player++)
+            System.out.println("player" + player + " round latency " + latencySummary(roundNanos[player]));
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        long[] all = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+    /**
+     * @return mean, median, 99th percentile and maximum in milliseconds
+     */
+    static String latencySummary(long[] nanos) {
+        if (nanos.length == 0)
+            return "no rounds";
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("mean %.3fms, p50 %.3fms, p99 %.3fms, max %.3fms",
+                Arrays.stream(sorted).average().getAsDouble() / 1e6, sorted[sorted.length / 2] / 1e6,
+                sorted[Math.min(sorted.length - 1, (int) (sorted.length * .99))] / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+}
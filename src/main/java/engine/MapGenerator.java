@@ -0,0 +1,70 @@
+package engine;
+
+import map.RegionGraph;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Generates random maps of any size. Regions are laid out on a grid and connected to their horizontal and
+ * vertical neighbors plus some random diagonals. SuperRegions are blocks of up to six Regions, rewarding one
+ * army less than the number of their Regions that border another SuperRegion. About one Region in ten is a
+ * wasteland.
+ */
+public class MapGenerator {
+    private static final int BLOCK_WIDTH = 3;
+    private static final int BLOCK_HEIGHT = 2;
+
+    private final Random random;
+
+    public MapGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param regionCount the number of Regions, at least 2
+     * @return a new map with Region ids 1 to regionCount
+     */
+    public GameMap generate(int regionCount) {
+        if (regionCount < 2)
+            throw new IllegalArgumentException("A map needs at least 2 regions, got " + regionCount);
+        int width = (int) Math.ceil(Math.sqrt(regionCount));
+        int blocksPerRow = (width + BLOCK_WIDTH - 1) / BLOCK_WIDTH;
+
+        int[] superRegionOf = new int[regionCount + 1];
+        int superRegionBound = 1;
+        RegionGraph.Builder graph = new RegionGraph.Builder();
+        for (int id = 1; id <= regionCount; id++) {
+            int x = (id - 1) % width;
+            int y = (id - 1) / width;
+            superRegionOf[id] = (y / BLOCK_HEIGHT) * blocksPerRow + x / BLOCK_WIDTH + 1;
+            superRegionBound = Math.max(superRegionBound, superRegionOf[id] + 1);
+
+            if (x + 1 < width && id + 1 <= regionCount)
+                graph.addEdge(id, id + 1);
+            if (id + width <= regionCount)
+                graph.addEdge(id, id + width);
+            if (x + 1 < width && id + width + 1 <= regionCount && random.nextInt(4) == 0)
+                graph.addEdge(id, id + width + 1);
+        }
+        RegionGraph regionGraph = graph.build();
+
+        int[] rewards = new int[superRegionBound];
+        for (int id = 1; id <= regionCount; id++) {
+            for (int k = regionGraph.neighborStart(id); k < regionGraph.neighborEnd(id); k++) {
+                if (superRegionOf[regionGraph.neighborAt(k)] != superRegionOf[id]) {
+                    rewards[superRegionOf[id]]++;
+                    break;
+                }
+            }
+        }
+        for (int superRegionId = 1; superRegionId < superRegionBound; superRegionId++)
+            rewards[superRegionId] = Math.max(1, rewards[superRegionId] - 1);
+
+        BitSet wastelands = new BitSet();
+        for (int i = 0; i < regionCount / 10; i++)
+            wastelands.set(1 + random.nextInt(regionCount));
+
+        return new GameMap(rewards, superRegionOf, regionGraph, wastelands);
+    }
+}
@@ -0,0 +1,195 @@
+package engine;
+
+import bot.BotParameters;
+import bot.BotStarter;
+import log.LogConfig;
+import log.LogLevel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays a round robin between BotStarters with different {@link BotParameters} on all cores and reports the
+ * win rates with 95% Wilson confidence intervals.
+ * <p>
+ * Every game is independent: it gets a map generated from its own seed, two new bots and their own
+ * BotStates, so games can run in any order on any thread and a tournament is reproducible from its seed.
+ * Each pairing plays the same maps twice with the seats swapped. Draws count as half a win.
+ * <p>
+ * Every core already plays a game, so the bots search on a single thread and are closed after their game.
+ * <p>
+ * Usage: Tournament [games per pairing] [regions] [parameter=value,value,...]... Every combination of the
+ * given values is an entrant, parameters that aren't given keep their defaults. Games are played without a
+ * timebank, so the bots answer with their first plan and the move search never runs.
+ */
+public class Tournament {
+    private static final double Z_95 = 1.959964;
+
+    private final List<BotParameters> entrants;
+    private final GameSettings settings;
+    private final int regions;
+    private final long seed;
+
+    public Tournament(List<BotParameters> entrants, GameSettings settings, int regions, long seed) {
+        if (entrants.size() < 2)
+            throw new IllegalArgumentException("A tournament needs at least 2 entrants, got " + entrants.size());
+        this.entrants = entrants;
+        this.settings = settings;
+        this.regions = regions;
+        this.seed = seed;
+    }
+
+    /**
+     * @param gamesPerPairing the number of maps each pair of entrants plays, once from each seat
+     * @param threads the number of games played at the same time
+     * @return the standings of all entrants in the order they were given
+     */
+    public List<Standing> play(int gamesPerPairing, int threads) throws InterruptedException {
+        List<Standing> standings = new ArrayList<>();
+        for (BotParameters parameters : entrants)
+            standings.add(new Standing(parameters));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameResult>> results = new ArrayList<>();
+            List<int[]> seats = new ArrayList<>();
+            for (int first = 0; first < entrants.size(); first++) {
+                for (int second = first + 1; second < entrants.size(); second++) {
+                    for (int game = 0; game < gamesPerPairing; game++) {
+                        long gameSeed = seed + game;
+                        results.add(executor.submit(playGame(first, second, gameSeed)));
+                        seats.add(new int[]{first, second});
+                        results.add(executor.submit(playGame(second, first, gameSeed)));
+                        seats.add(new int[]{second, first});
+                    }
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                GameResult result = results.get(i).get();
+                Standing player1 = standings.get(seats.get(i)[0]);
+                Standing player2 = standings.get(seats.get(i)[1]);
+                player1.add(result, Game.PLAYER_1);
+                player2.add(result, Game.PLAYER_2);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Game failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return standings;
+    }
+
+    private Callable<GameResult> playGame(int player1, int player2, long gameSeed) {
+        return () -> {
+            GameMap map = new MapGenerator(gameSeed).generate(regions);
+            try (BotStarter bot1 = new BotStarter(entrants.get(player1), 1);
+                 BotStarter bot2 = new BotStarter(entrants.get(player2), 1)) {
+                return new Game(map, bot1, bot2, settings, gameSeed).play();
+            }
+        };
+    }
+
+    /**
+     * @param wins the number of wins, draws counted as halves
+     * @param games the number of games
+     * @param z the quantile of the standard normal distribution for the confidence level
+     * @return the lower and upper bound of the Wilson score interval of the win rate
+     */
+    public static double[] wilsonInterval(double wins, int games, double z) {
+        if (games == 0)
+            return new double[]{0, 1};
+        double rate = wins / games;
+        double z2 = z * z;
+        double center = (rate + z2 / (2 * games)) / (1 + z2 / games);
+        double margin = z * Math.sqrt(rate * (1 - rate) / games + z2 / (4.0 * games * games)) / (1 + z2 / games);
+        return new double[]{Math.max(0, center - margin), Math.min(1, center + margin)};
+    }
+
+    /**
+     * The results of one entrant over all its games.
+     */
+    public static class Standing {
+        private final BotParameters parameters;
+        private int games;
+        private int wins;
+        private int draws;
+
+        Standing(BotParameters parameters) {
+            this.parameters = parameters;
+        }
+
+        void add(GameResult result, int seat) {
+            games++;
+            if (result.getWinner() == seat)
+                wins++;
+            else if (result.getWinner() == GameResult.DRAW)
+                draws++;
+        }
+
+        public BotParameters getParameters() {
+            return parameters;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        public double getWinRate() {
+            return games == 0 ? 0 : (wins + draws / 2.0) / games;
+        }
+
+        /**
+         * @return the 95% confidence interval of the win rate
+         */
+        public double[] getConfidenceInterval() {
+            return wilsonInterval(wins + draws / 2.0, games, Z_95);
+        }
+
+        @Override
+        public String toString() {
+            double[] interval = getConfidenceInterval();
+            return String.format("%5.1f%% [%5.1f%%, %5.1f%%] %d games, %d wins, %d draws, %s", getWinRate() * 100,
+                    interval[0] * 100, interval[1] * 100, games, wins, draws, parameters);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int gamesPerPairing = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int regions = args.length > 1 ? Integer.parseInt(args[1]) : 42;
+        List<BotParameters> entrants = new ArrayList<>();
+        entrants.add(BotParameters.DEFAULT);
+        for (int i = 2; i < args.length; i++) {
+            String[] sweep = args[i].split("=");
+            List<BotParameters> combined = new ArrayList<>();
+            for (BotParameters parameters : entrants)
+                for (String value : sweep[1].split(","))
+                    combined.add(parameters.with(sweep[0], Double.parseDouble(value)));
+            entrants = combined;
+        }
+        if (entrants.size() == 1)
+            entrants.add(BotParameters.DEFAULT);
+        LogConfig.getInstance().setAllLevels(LogLevel.ERROR);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        List<Standing> standings = new Tournament(entrants, new GameSettings(), regions, 1).play(gamesPerPairing, threads);
+        System.out.printf("%d entrants on %d threads in %.1f seconds%n", entrants.size(), threads,
+                (System.nanoTime() - start) / 1e9);
+        standings.sort((s1, s2) -> Double.compare(s2.getWinRate(), s1.getWinRate()));
+        for (Standing standing : standings)
+            System.out.println(standing);
+    }
+}
@@ -0,0 +1,26 @@
+package log;
+
+/**
+ * Writes the lines of Loggers somewhere. The message is passed unformatted, so an Appender can decide on which
+ * thread the formatting happens.
+ */
+public interface Appender {
+
+    /**
+     * @param timeMillis the time the line was logged
+     * @param threadName the name of the logging thread
+     * @param level the level of the line
+     * @param loggerName the name of the Logger
+     * @param format the message format, or the plain message if thrown isn't null
+     * @param args the arguments of the format, may be null
+     * @param thrown the Throwable to print with the message, may be null
+     */
+    public void append(long timeMillis, String threadName, LogLevel level, String loggerName, String format,
+                       Object[] args, Throwable thrown);
+
+    /**
+     * Blocks until all lines appended so far are written.
+     */
+    public void flush();
+
+}
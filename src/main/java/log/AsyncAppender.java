@@ -0,0 +1,197 @@
+package log;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands lines to a background thread that formats and writes them, so logging threads only copy a few
+ * references into a slot of a bounded ring buffer. The slots are allocated once up front.
+ * <p>
+ * When the buffer is full, lines are either dropped and counted, or the logging thread waits for a free
+ * slot, depending on the {@link OverflowPolicy}. The lines left in the buffer are written by a shutdown hook
+ * when the JVM exits.
+ * <p>
+ * Arguments are formatted later on the background thread. Strings, numbers and other immutable values are
+ * kept as they are, anything else is turned into a String when the line is appended, so later changes to
+ * for example a Region don't change what is logged.
+ */
+public class AsyncAppender implements Appender {
+    public static final int DEFAULT_CAPACITY = 1 << 13;
+    private static final long IDLE_PARK_NANOS = 1000000L;
+    private static final long FULL_PARK_NANOS = 10000L;
+    private static final long CLOSE_TIMEOUT_MILLIS = 1000L;
+
+    public enum OverflowPolicy {
+        DROP, //the line is counted and dropped, the logging thread never waits
+        BLOCK //the logging thread waits until the background thread has written a line
+    }
+
+    private final StreamAppender target;
+    private final Slot[] slots;
+    private final int mask;
+    private final OverflowPolicy policy;
+    private final AtomicLong claimed = new AtomicLong(); //the next sequence number a logging thread can claim
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long written; //all lines before this sequence number are written
+    private volatile boolean closed;
+    private final Thread writer;
+
+    /**
+     * @param out the stream to write to
+     * @param capacity the number of buffered lines, rounded up to a power of two
+     * @param policy what to do when the buffer is full
+     */
+    public AsyncAppender(OutputStream out, int capacity, OverflowPolicy policy) {
+        this.target = new StreamAppender(new PrintStream(new BufferedOutputStream(out, 1 << 16), false));
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++)
+            slots[i] = new Slot();
+        this.mask = size - 1;
+        this.policy = policy;
+        this.writer = new Thread(this::run, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "log-writer-shutdown"));
+    }
+
+    @Override
+    public void append(long timeMillis, String threadName, LogLevel level, String loggerName, String format,
+                       Object[] args, Throwable thrown) {
+        long sequence = closed ? -1 : claim();
+        if (sequence < 0) {
+            if (closed)
+                target.append(timeMillis, threadName, level, loggerName, format, args, thrown);
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.timeMillis = timeMillis;
+        slot.threadName = threadName;
+        slot.level = level;
+        slot.loggerName = loggerName;
+        slot.format = format;
+        slot.args = snapshot(args);
+        slot.thrown = thrown;
+        slot.sequence = sequence; //publishes the line to the writer
+    }
+
+    /**
+     * @return the claimed sequence number, or -1 if the line is dropped or the appender is closed
+     */
+    private long claim() {
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - written >= slots.length) {
+                if (policy == OverflowPolicy.DROP) {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+                if (closed)
+                    return -1;
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    private static Object[] snapshot(Object[] args) {
+        if (args == null)
+            return null;
+        Object[] copy = args;
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg == null || arg instanceof String || arg instanceof Number || arg instanceof Boolean ||
+                    arg instanceof Character || arg instanceof Enum)
+                continue;
+            if (copy == args)
+                copy = args.clone();
+            copy[i] = String.valueOf(arg);
+        }
+        return copy;
+    }
+
+    /**
+     * @return the number of lines dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void flush() {
+        long target = claimed.get();
+        while (written < target && writer.isAlive())
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        this.target.flush();
+    }
+
+    /**
+     * Writes the buffered lines and stops the background thread. Lines appended afterwards are written on the
+     * calling thread.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        target.flush();
+    }
+
+    private void run() {
+        long next = 0;
+        long reportedDrops = 0;
+        boolean pending = false;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.sequence == next) {
+                target.append(slot.timeMillis, slot.threadName, slot.level, slot.loggerName, slot.format, slot.args,
+                        slot.thrown);
+                slot.clear();
+                written = ++next;
+                pending = true;
+                continue;
+            }
+            long drops = dropped.get();
+            if (drops > reportedDrops) {
+                target.append(System.currentTimeMillis(), Thread.currentThread().getName(), LogLevel.WARN,
+                        AsyncAppender.class.getSimpleName(), "Dropped %d log lines, the buffer was full",
+                        new Object[]{drops - reportedDrops}, null);
+                reportedDrops = drops;
+                pending = true;
+            }
+            if (pending) { //the buffer is empty, write out what was formatted so far
+                target.flush();
+                pending = false;
+            }
+            if (closed && next == claimed.get())
+                return;
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private static final class Slot {
+        volatile long sequence = -1;
+        long timeMillis;
+        String threadName;
+        LogLevel level;
+        String loggerName;
+        String format;
+        Object[] args;
+        Throwable thrown;
+
+        void clear() {
+            threadName = null;
+            loggerName = null;
+            format = null;
+            args = null;
+            thrown = null;
+        }
+    }
+}
@@ -1,24 +1,44 @@
 package log;
 
-import bot.AttackListRanker;
-import bot.AttackSuperRegionRanker;
-import bot.TroopMovePlanner;
-
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Created by johnunderwood on 7/11/15.
+ * <p>
+ * Levels are read at startup from the properties file named by the system property {@code log.config}, then
+ * from system properties, which win. {@code log.level} sets the root level and {@code log.level.<name>} the
+ * level of the logger with that name, e.g. {@code -Dlog.level.TroopMovePlanner=TRACE}. Every Logger caches
+ * its level and is updated when levels change.
  */
 public class LogConfig {
+    public static final String CONFIG_FILE_PROPERTY = "log.config";
+    public static final String LEVEL_PROPERTY = "log.level";
+
     private static LogConfig instance = null;
-    private LogLevel rootLevel = LogLevel.INFO;
-    private Map<String,LogLevel> loggerLevels = new HashMap<>();
+    private volatile LogLevel rootLevel = LogLevel.INFO;
+    private final Map<String,LogLevel> loggerLevels = new ConcurrentHashMap<>();
+    private final List<Logger> loggers = new CopyOnWriteArrayList<>();
+    private volatile Appender appender = new StreamAppender(System.err);
 
     private LogConfig() {
-        //loggerLevels.put(AttackSuperRegionRanker.class.getSimpleName(), LogLevel.DEBUG);
-        loggerLevels.put(AttackListRanker.class.getSimpleName(), LogLevel.DEBUG);
-        loggerLevels.put(TroopMovePlanner.class.getSimpleName(), LogLevel.TRACE);
+        String configFile = System.getProperty(CONFIG_FILE_PROPERTY);
+        if (configFile != null) {
+            try {
+                configure(Paths.get(configFile));
+            } catch (IOException e) {
+                System.err.println("Unable to read log config " + configFile + ": " + e.getMessage());
+            }
+        }
+        configure(System.getProperties());
     }
 
     public static synchronized LogConfig getInstance() {
@@ -29,15 +49,76 @@ public class LogConfig {
         return instance;
     }
 
-    public LogLevel getLoggerLevel(String loggerName) {
-        if(loggerLevels.containsKey(loggerName)) {
-            return loggerLevels.get(loggerName);
-        } else {
-            return rootLevel;
+    /**
+     * Reads the levels of a properties file, see the class comment for the keys.
+     */
+    public void configure(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        configure(properties);
+    }
+
+    /**
+     * Applies the levels of all {@code log.level} keys, other keys are ignored.
+     */
+    public void configure(Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.equals(LEVEL_PROPERTY) && !key.startsWith(LEVEL_PROPERTY + "."))
+                continue;
+            LogLevel level;
+            try {
+                level = LogLevel.valueOf(properties.getProperty(key).trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unable to parse log level " + key + "=" + properties.getProperty(key));
+                continue;
+            }
+            if (key.equals(LEVEL_PROPERTY))
+                rootLevel = level;
+            else
+                loggerLevels.put(key.substring(LEVEL_PROPERTY.length() + 1), level);
         }
+        updateLoggers();
+    }
+
+    void register(Logger logger) {
+        loggers.add(logger);
+        logger.setLevel(getLoggerLevel(logger.getName()));
+    }
+
+    public LogLevel getLoggerLevel(String loggerName) {
+        return loggerLevels.getOrDefault(loggerName, rootLevel);
     }
 
     public void setLoggerLevel(String name, LogLevel level) {
         loggerLevels.put(name, level);
+        updateLoggers();
+    }
+
+    public Appender getAppender() {
+        return appender;
+    }
+
+    /**
+     * Replaces the Appender of all loggers that weren't given their own stream, e.g. with an
+     * {@link AsyncAppender} to take formatting and writing off the logging threads.
+     */
+    public void setAppender(Appender appender) {
+        this.appender = appender;
+    }
+
+    /**
+     * Sets the level of all loggers, dropping the levels set for single loggers.
+     */
+    public void setAllLevels(LogLevel level) {
+        rootLevel = level;
+        loggerLevels.clear();
+        updateLoggers();
+    }
+
+    private void updateLoggers() {
+        for (Logger logger : loggers)
+            logger.setLevel(getLoggerLevel(logger.getName()));
     }
 }
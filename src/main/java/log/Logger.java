@@ -1,48 +1,149 @@
 package log;
 
 import java.io.PrintStream;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.function.Supplier;
 
 /**
  * Created by johnunderwood on 7/11/15.
+ * <p>
+ * The level of a Logger is cached in the Logger and updated by {@link LogConfig} when levels change, so a
+ * disabled statement costs a single comparison. The overloads with one or two arguments don't create a
+ * varargs array, the Supplier overloads build their message only when the level is enabled.
  */
 public class Logger {
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
-    private final String prefixFormat = "%s [%s] %s %s : ";
-    private final String errorFormat = "%s %s: %s";
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final int TRACE = LogLevel.TRACE.ordinal();
+    private static final int DEBUG = LogLevel.DEBUG.ordinal();
+    private static final int INFO = LogLevel.INFO.ordinal();
+    private static final int WARN = LogLevel.WARN.ordinal();
+    private static final int ERROR = LogLevel.ERROR.ordinal();
+
     private final String name;
     private final LogConfig logConfig;
-    private final PrintStream out;
+    private final Appender appender; //null to use the Appender of the LogConfig
+    private volatile int threshold; //ordinal of the lowest enabled level
 
     public Logger(String name) {
-        this(name, System.err);
+        this(name, (Appender) null);
     }
 
     public Logger(String name, PrintStream out) {
+        this(name, new StreamAppender(out));
+    }
+
+    private Logger(String name, Appender appender) {
         this.name = name;
         this.logConfig = LogConfig.getInstance();
-        this.out = out;
+        this.appender = appender;
+        logConfig.register(this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void setLevel(LogLevel level) {
+        threshold = level.ordinal();
+    }
+
+    public boolean isEnabled(LogLevel level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public boolean isTraceEnabled() {
+        return TRACE >= threshold;
+    }
+
+    public boolean isDebugEnabled() {
+        return DEBUG >= threshold;
+    }
+
+    public boolean isInfoEnabled() {
+        return INFO >= threshold;
+    }
+
+    public void trace(String message) {
+        if (TRACE >= threshold) write(LogLevel.TRACE, message, NO_ARGS);
+    }
+
+    public void trace(String format, Object arg) {
+        if (TRACE >= threshold) write(LogLevel.TRACE, format, new Object[]{arg});
+    }
+
+    public void trace(String format, Object arg1, Object arg2) {
+        if (TRACE >= threshold) write(LogLevel.TRACE, format, new Object[]{arg1, arg2});
     }
 
     public void trace(String format, Object... args) {
-        log(LogLevel.TRACE, format, args);
+        if (TRACE >= threshold) write(LogLevel.TRACE, format, args);
+    }
+
+    public void trace(Supplier<String> message) {
+        if (TRACE >= threshold) write(LogLevel.TRACE, message.get(), null);
+    }
+
+    public void debug(String message) {
+        if (DEBUG >= threshold) write(LogLevel.DEBUG, message, NO_ARGS);
+    }
+
+    public void debug(String format, Object arg) {
+        if (DEBUG >= threshold) write(LogLevel.DEBUG, format, new Object[]{arg});
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (DEBUG >= threshold) write(LogLevel.DEBUG, format, new Object[]{arg1, arg2});
     }
 
     public void debug(String format, Object... args) {
-        log(LogLevel.DEBUG, format, args);
+        if (DEBUG >= threshold) write(LogLevel.DEBUG, format, args);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (DEBUG >= threshold) write(LogLevel.DEBUG, message.get(), null);
+    }
+
+    public void info(String message) {
+        if (INFO >= threshold) write(LogLevel.INFO, message, NO_ARGS);
+    }
+
+    public void info(String format, Object arg) {
+        if (INFO >= threshold) write(LogLevel.INFO, format, new Object[]{arg});
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (INFO >= threshold) write(LogLevel.INFO, format, new Object[]{arg1, arg2});
     }
 
     public void info(String format, Object... args) {
-        log(LogLevel.INFO, format, args);
+        if (INFO >= threshold) write(LogLevel.INFO, format, args);
+    }
+
+    public void info(Supplier<String> message) {
+        if (INFO >= threshold) write(LogLevel.INFO, message.get(), null);
+    }
+
+    public void warn(String message) {
+        if (WARN >= threshold) write(LogLevel.WARN, message, NO_ARGS);
     }
 
     public void warn(String format, Object... args) {
-        log(LogLevel.WARN, format, args);
+        if (WARN >= threshold) write(LogLevel.WARN, format, args);
+    }
+
+    public void warn(Supplier<String> message) {
+        if (WARN >= threshold) write(LogLevel.WARN, message.get(), null);
+    }
+
+    public void error(String message) {
+        if (ERROR >= threshold) write(LogLevel.ERROR, message, NO_ARGS);
     }
 
     public void error(String format, Object... args) {
-        log(LogLevel.ERROR, format, args);
+        if (ERROR >= threshold) write(LogLevel.ERROR, format, args);
+    }
+
+    public void error(Supplier<String> message) {
+        if (ERROR >= threshold) write(LogLevel.ERROR, message.get(), null);
     }
 
     public void warn(String text, Throwable t) {
@@ -53,26 +154,23 @@ public class Logger {
         log(LogLevel.ERROR, text, t);
     }
 
-    public synchronized void log(LogLevel level, String text, Throwable t) {
-        if( logLevelEnabled(level) ) {
-            String messagePrefix = String.format(prefixFormat,
-                    dateFormat.format(new Date()), Thread.currentThread().getName(), level, name);
-            String messageBody = String.format(errorFormat, text, t.getClass().getName(), t.getMessage());
-            out.println(messagePrefix + messageBody);
-            t.printStackTrace(out);
+    public void log(LogLevel level, String text, Throwable t) {
+        if (isEnabled(level)) {
+            appender().append(System.currentTimeMillis(), Thread.currentThread().getName(), level, name, text, null, t);
         }
     }
 
-    public synchronized void log(LogLevel level, String format, Object... args) {
-        if( logLevelEnabled(level) ) {
-            String messagePrefix = String.format(prefixFormat,
-                    dateFormat.format(new Date()), Thread.currentThread().getName(), level, name);
-            String messageBody = String.format(format, args);
-            out.println(messagePrefix + messageBody);
+    public void log(LogLevel level, String format, Object... args) {
+        if (isEnabled(level)) {
+            write(level, format, args);
         }
     }
 
-    private boolean logLevelEnabled(LogLevel level) {
-        return logConfig.getLoggerLevel(name).ordinal() <= level.ordinal();
+    private void write(LogLevel level, String format, Object[] args) {
+        appender().append(System.currentTimeMillis(), Thread.currentThread().getName(), level, name, format, args, null);
+    }
+
+    private Appender appender() {
+        return appender != null ? appender : logConfig.getAppender();
     }
 }
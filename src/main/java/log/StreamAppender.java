@@ -0,0 +1,39 @@
+package log;
+
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Formats and writes every line on the calling thread.
+ */
+public class StreamAppender implements Appender {
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    private final String prefixFormat = "%s [%s] %s %s : ";
+    private final String errorFormat = "%s %s: %s";
+    private final PrintStream out;
+
+    public StreamAppender(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public synchronized void append(long timeMillis, String threadName, LogLevel level, String loggerName,
+                                    String format, Object[] args, Throwable thrown) {
+        String messagePrefix = String.format(prefixFormat,
+                dateFormat.format(new Date(timeMillis)), threadName, level, loggerName);
+        if (thrown != null) {
+            String messageBody = String.format(errorFormat, format, thrown.getClass().getName(), thrown.getMessage());
+            out.println(messagePrefix + messageBody);
+            thrown.printStackTrace(out);
+        } else {
+            String messageBody = args == null ? format : String.format(format, args);
+            out.println(messagePrefix + messageBody);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        out.flush();
+    }
+}
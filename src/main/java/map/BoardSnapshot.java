@@ -0,0 +1,182 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * An immutable view of the owners and armies of a GameBoard that changes by making new snapshots. The values
+ * are kept in a persistent 32-way trie indexed by Region id: a change copies only the path from the root to
+ * the changed Region, all other nodes are shared with the snapshot it was made from. A hypothetical board
+ * "after these moves" costs O(changed Regions) to make and never touches the live board.
+ * <p>
+ * The adjacency and SuperRegion layout are made once per board and shared by all its snapshots, and by the
+ * snapshots of its copies made with {@link GameBoard#getMapCopy()}.
+ */
+public final class BoardSnapshot {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final Layout layout;
+    private final Object root; //Object[] inner nodes, long[] leaves of owner index << 32 | armies
+    private final String[] players; //owner names by index, shared until a new name is added
+
+    private BoardSnapshot(Layout layout, Object root, String[] players) {
+        this.layout = layout;
+        this.root = root;
+        this.players = players;
+    }
+
+    /**
+     * @return a snapshot of the current owners and armies of the board
+     */
+    public static BoardSnapshot of(GameBoard board) {
+        Layout layout = board.getSnapshotLayout();
+        String[] players = new String[0];
+        long[] values = new long[layout.idBound];
+        for (Region region : board.getRegions()) {
+            int player = indexOf(players, region.getPlayerName());
+            if (player == players.length) {
+                players = Arrays.copyOf(players, player + 1);
+                players[player] = region.getPlayerName();
+            }
+            values[region.getId()] = pack(player, region.getArmies());
+        }
+        return new BoardSnapshot(layout, build(values, 0, layout.shift), players);
+    }
+
+    private static Object build(long[] values, int offset, int shift) {
+        if (shift == 0) {
+            long[] leaf = new long[WIDTH];
+            System.arraycopy(values, offset, leaf, 0, Math.max(0, Math.min(WIDTH, values.length - offset)));
+            return leaf;
+        }
+        Object[] node = new Object[WIDTH];
+        for (int i = 0; i < WIDTH && offset + (i << shift) < values.length; i++)
+            node[i] = build(values, offset + (i << shift), shift - BITS);
+        return node;
+    }
+
+    public RegionGraph getGraph() {
+        return layout.graph;
+    }
+
+    /**
+     * @return one more than the largest Region id
+     */
+    public int getRegionIdBound() {
+        return layout.idBound;
+    }
+
+    /**
+     * @return the id of the SuperRegion of the Region, or -1 if there is no Region with this id
+     */
+    public int getSuperRegionId(int id) {
+        return id >= 0 && id < layout.idBound ? layout.superRegionOf[id] : -1;
+    }
+
+    public int getArmies(int id) {
+        return (int) get(id);
+    }
+
+    public int getArmies(Region region) {
+        return getArmies(region.getId());
+    }
+
+    public String getPlayerName(int id) {
+        return players[(int) (get(id) >>> 32)];
+    }
+
+    public boolean ownedByPlayer(int id, String playerName) {
+        return playerName.equals(getPlayerName(id));
+    }
+
+    /**
+     * @return a snapshot with the armies of the Region changed, sharing everything else with this one
+     */
+    public BoardSnapshot withArmies(int id, int armies) {
+        long value = get(id);
+        if ((int) value == armies)
+            return this;
+        return new BoardSnapshot(layout, set(root, layout.shift, id, pack((int) (value >>> 32), armies)), players);
+    }
+
+    /**
+     * @return a snapshot with armies added to (or taken from, if negative) the Region
+     */
+    public BoardSnapshot addArmies(int id, int armies) {
+        return withArmies(id, getArmies(id) + armies);
+    }
+
+    /**
+     * @return a snapshot with the owner of the Region changed, sharing everything else with this one
+     */
+    public BoardSnapshot withPlayerName(int id, String playerName) {
+        String[] players = this.players;
+        int player = indexOf(players, playerName);
+        if (player == players.length) {
+            players = Arrays.copyOf(players, player + 1);
+            players[player] = playerName;
+        }
+        long value = get(id);
+        if ((value >>> 32) == player)
+            return this;
+        return new BoardSnapshot(layout, set(root, layout.shift, id, pack(player, (int) value)), players);
+    }
+
+    private long get(int id) {
+        if (id < 0 || id >= layout.idBound)
+            throw new IndexOutOfBoundsException("No Region with id " + id);
+        Object node = root;
+        for (int shift = layout.shift; shift > 0; shift -= BITS)
+            node = ((Object[]) node)[(id >>> shift) & MASK];
+        return ((long[]) node)[id & MASK];
+    }
+
+    private static Object set(Object node, int shift, int id, long value) {
+        if (shift == 0) {
+            long[] leaf = ((long[]) node).clone();
+            leaf[id & MASK] = value;
+            return leaf;
+        }
+        Object[] inner = ((Object[]) node).clone();
+        int index = (id >>> shift) & MASK;
+        inner[index] = set(inner[index], shift - BITS, id, value);
+        return inner;
+    }
+
+    private static long pack(int player, int armies) {
+        return ((long) player << 32) | (armies & 0xffffffffL);
+    }
+
+    private static int indexOf(String[] players, String playerName) {
+        for (int i = 0; i < players.length; i++)
+            if (players[i].equals(playerName))
+                return i;
+        return players.length;
+    }
+
+    /**
+     * The static part of a board shared by all its snapshots.
+     */
+    static final class Layout {
+        final RegionGraph graph;
+        final int idBound;
+        final int shift; //the bit shift of the root level
+        final int[] superRegionOf;
+        final int regionCount;
+
+        Layout(GameBoard board, RegionGraph graph) {
+            this.graph = graph;
+            this.idBound = Math.max(board.getRegionIdBound(), graph.getIdBound());
+            int shift = 0;
+            while (shift + BITS < 31 && (idBound - 1) >>> (shift + BITS) != 0)
+                shift += BITS;
+            this.shift = shift;
+            this.superRegionOf = new int[idBound];
+            Arrays.fill(superRegionOf, -1);
+            for (Region region : board.getRegions())
+                superRegionOf[region.getId()] = region.getSuperRegion().getId();
+            this.regionCount = board.getRegions().size();
+        }
+    }
+}
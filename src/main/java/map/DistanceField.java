@@ -0,0 +1,120 @@
+package map;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Hop distances from a set of source Regions over passable Regions, computed with one multi-source breadth
+ * first search into an int array indexed by Region id. Every source has to be passable itself.
+ * <p>
+ * The result is cached until the ownership of a Region on the GameBoard changes, so predicates must only depend
+ * on Region owners and the static map. Call {@link #invalidate()} when they depend on anything else.
+ */
+public class DistanceField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final GameBoard board;
+    private final Predicate<Region> source;
+    private final Predicate<Region> passable;
+    private int[] distances = new int[0];
+    private int[] queue = new int[0];
+    private long computedVersion = -1;
+
+    /**
+     * @param board the GameBoard to measure on
+     * @param source condition for Regions with distance 0
+     * @param passable condition for Regions the search can enter
+     */
+    public DistanceField(GameBoard board, Predicate<Region> source, Predicate<Region> passable) {
+        this.board = board;
+        this.source = source;
+        this.passable = passable;
+    }
+
+    /**
+     * @param id a Region id
+     * @return the number of hops from the closest source, or UNREACHABLE
+     */
+    public int getDistance(int id) {
+        ensureComputed();
+        return id >= 0 && id < distances.length ? distances[id] : UNREACHABLE;
+    }
+
+    /**
+     * @param region a Region of the GameBoard
+     * @return the number of hops from the closest source, or UNREACHABLE
+     */
+    public int getDistance(Region region) {
+        return getDistance(region.getId());
+    }
+
+    /**
+     * @return True if the Region can be reached from any source, false otherwise
+     */
+    public boolean isReachable(Region region) {
+        return getDistance(region) != UNREACHABLE;
+    }
+
+    /**
+     * Forces the distances to be recomputed on the next query.
+     */
+    public void invalidate() {
+        computedVersion = -1;
+    }
+
+    private void ensureComputed() {
+        if (computedVersion != board.getOwnershipVersion()) {
+            compute();
+            computedVersion = board.getOwnershipVersion();
+        }
+    }
+
+    private void compute() {
+        RegionGraph graph = board.getGraph();
+        int idBound = Math.max(board.getRegionIdBound(), graph.getIdBound());
+        if (distances.length < idBound) {
+            distances = new int[idBound];
+            queue = new int[idBound];
+        }
+        Arrays.fill(distances, UNREACHABLE);
+
+        int head = 0;
+        int tail = 0;
+        for (Region region : board.getRegions()) {
+            if (passable.test(region) && source.test(region)) {
+                distances[region.getId()] = 0;
+                queue[tail++] = region.getId();
+            }
+        }
+
+        while (head < tail) {
+            int id = queue[head++];
+            int next = distances[id] + 1;
+            int end = graph.neighborEnd(id);
+            for (int k = graph.neighborStart(id); k < end; k++) {
+                int neighborId = graph.neighborAt(k);
+                if (distances[neighborId] == UNREACHABLE) {
+                    Region neighbor = board.getRegion(neighborId);
+                    if (neighbor != null && passable.test(neighbor)) {
+                        distances[neighborId] = next;
+                        queue[tail++] = neighborId;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        ensureComputed();
+        StringBuilder builder = new StringBuilder("{");
+        for (int id = 0; id < distances.length; id++) {
+            if (distances[id] != UNREACHABLE) {
+                if (builder.length() > 1)
+                    builder.append(", ");
+                builder.append(id).append('=').append(distances[id]);
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
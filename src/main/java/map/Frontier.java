@@ -0,0 +1,177 @@
+package map;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The Regions of a player that matter for planning: its own Regions, its border Regions, the ones that touch
+ * the enemy, and the Regions it can attack. Each Region keeps a count of its neighbors owned by the player and
+ * by the enemy, and when a Region changes owner only that Region and its neighbors are updated, so keeping the
+ * frontier costs O(degree) per owner change instead of a scan of the map per query.
+ * <p>
+ * Lists are in Region id order. A Frontier is rebuilt from scratch when Regions or connections are added to
+ * the GameBoard.
+ */
+public class Frontier {
+    private final GameBoard board;
+    private final String playerName;
+    private final String enemyName;
+
+    private RegionGraph graph;
+    private int regionCount = -1;
+    private int[] ownedNeighbors = new int[0];
+    private int[] enemyNeighbors = new int[0];
+    private final BitSet owned = new BitSet();
+    private final BitSet enemy = new BitSet();
+    private final BitSet border = new BitSet();
+    private final BitSet enemyBorder = new BitSet();
+    private final BitSet attackable = new BitSet();
+
+    Frontier(GameBoard board, String playerName, String enemyName) {
+        this.board = board;
+        this.playerName = playerName;
+        this.enemyName = enemyName;
+    }
+
+    String getPlayerName() {
+        return playerName;
+    }
+
+    String getEnemyName() {
+        return enemyName;
+    }
+
+    /**
+     * @return True if the Region is owned by the player and has a neighbor it doesn't own
+     */
+    public boolean isBorder(Region region) {
+        ensureCurrent();
+        return border.get(region.getId());
+    }
+
+    /**
+     * @return True if the Region is owned by the player and has a neighbor owned by the enemy
+     */
+    public boolean bordersEnemy(Region region) {
+        ensureCurrent();
+        return enemyBorder.get(region.getId());
+    }
+
+    /**
+     * @return True if the Region isn't owned by the player and has a neighbor owned by the player
+     */
+    public boolean isAttackable(Region region) {
+        ensureCurrent();
+        return attackable.get(region.getId());
+    }
+
+    /**
+     * @return the Regions owned by the player
+     */
+    public List<Region> getOwnedRegions() {
+        ensureCurrent();
+        return toRegions(owned);
+    }
+
+    /**
+     * @return the Regions owned by the player that have a neighbor it doesn't own
+     */
+    public List<Region> getBorderRegions() {
+        ensureCurrent();
+        return toRegions(border);
+    }
+
+    /**
+     * @return the Regions owned by the player that have a neighbor owned by the enemy
+     */
+    public List<Region> getEnemyBorderRegions() {
+        ensureCurrent();
+        return toRegions(enemyBorder);
+    }
+
+    /**
+     * @return the Regions the player doesn't own that have a neighbor owned by the player
+     */
+    public List<Region> getAttackableRegions() {
+        ensureCurrent();
+        return toRegions(attackable);
+    }
+
+    private List<Region> toRegions(BitSet ids) {
+        List<Region> regions = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1))
+            regions.add(board.getRegion(id));
+        return regions;
+    }
+
+    /**
+     * Called by the GameBoard after a Region changed owner.
+     */
+    void onOwnerChanged(Region region) {
+        if (!isCurrent())
+            return; //rebuilt on the next query
+        int id = region.getId();
+        boolean isOwned = region.ownedByPlayer(playerName);
+        boolean isEnemy = region.ownedByPlayer(enemyName);
+        int ownedDelta = (isOwned ? 1 : 0) - (owned.get(id) ? 1 : 0);
+        int enemyDelta = (isEnemy ? 1 : 0) - (enemy.get(id) ? 1 : 0);
+        if (ownedDelta == 0 && enemyDelta == 0)
+            return;
+        owned.set(id, isOwned);
+        enemy.set(id, isEnemy);
+        for (int k = graph.neighborStart(id); k < graph.neighborEnd(id); k++) {
+            int neighbor = graph.neighborAt(k);
+            ownedNeighbors[neighbor] += ownedDelta;
+            enemyNeighbors[neighbor] += enemyDelta;
+            refresh(neighbor);
+        }
+        refresh(id);
+    }
+
+    private void refresh(int id) {
+        boolean isOwned = owned.get(id);
+        border.set(id, isOwned && ownedNeighbors[id] < graph.degree(id));
+        enemyBorder.set(id, isOwned && enemyNeighbors[id] > 0);
+        attackable.set(id, !isOwned && ownedNeighbors[id] > 0 && board.getRegion(id) != null);
+    }
+
+    private boolean isCurrent() {
+        return graph != null && board.isCurrentGraph(graph) && regionCount == board.getRegions().size();
+    }
+
+    private void ensureCurrent() {
+        if (!isCurrent())
+            rebuild();
+    }
+
+    private void rebuild() {
+        graph = board.getGraph();
+        regionCount = board.getRegions().size();
+        int idBound = Math.max(board.getRegionIdBound(), graph.getIdBound());
+        ownedNeighbors = new int[idBound];
+        enemyNeighbors = new int[idBound];
+        owned.clear();
+        enemy.clear();
+        border.clear();
+        enemyBorder.clear();
+        attackable.clear();
+        for (Region region : board.getRegions()) {
+            if (region.ownedByPlayer(playerName))
+                owned.set(region.getId());
+            else if (region.ownedByPlayer(enemyName))
+                enemy.set(region.getId());
+        }
+        for (int id = 0; id < graph.getIdBound(); id++) {
+            for (int k = graph.neighborStart(id); k < graph.neighborEnd(id); k++) {
+                int neighbor = graph.neighborAt(k);
+                if (owned.get(neighbor))
+                    ownedNeighbors[id]++;
+                else if (enemy.get(neighbor))
+                    enemyNeighbors[id]++;
+            }
+        }
+        for (Region region : board.getRegions())
+            refresh(region.getId());
+    }
+}
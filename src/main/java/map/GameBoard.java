@@ -10,23 +10,91 @@
 
 package map;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
+/**
+ * Regions and SuperRegions are kept in array backed lists which also index them by id, so
+ * {@link #getRegion(int)} and {@link #getSuperRegion(int)} are constant time lookups.
+ * <p>
+ * Fog of war is tracked with a visibility flag on each Region instead of removing Regions from the map,
+ * so one board can be updated in place every round, see {@link #beginVisibilityUpdate()}.
+ * <p>
+ * The owners, visibility and wastelands of all Regions are also kept as {@link RegionMask}s indexed by Region
+ * id, so questions about whole SuperRegions are answered by combining masks instead of walking Regions.
+ */
 public class GameBoard {
 
-    public List<Region> regions;
-    public List<SuperRegion> superRegions;
+    public final List<Region> regions;
+    public final List<SuperRegion> superRegions;
+
+    private final IdIndexedList<Region> regionIndex;
+    private final IdIndexedList<SuperRegion> superRegionIndex;
+
+    private RegionGraph graph = RegionGraph.EMPTY;
+    private RegionGraph.Builder neighbors; //all connections, kept between builds and only appended to
+    private boolean graphStale;
+
+    private long ownershipVersion;
+    private final List<Frontier> frontiers = new ArrayList<>(2);
+    private final Map<String, RegionMask> ownerMasks = new HashMap<>();
+    private final RegionMask visibleMask = new RegionMask();
+    private final RegionMask wastelandMask = new RegionMask();
+    private BoardSnapshot.Layout snapshotLayout;
+
+    private List<Region> visibleRegions = new ArrayList<>();
+    private List<Region> previouslyVisibleRegions = new ArrayList<>();
 
     public GameBoard() {
-        this.regions = new LinkedList<>();
-        this.superRegions = new LinkedList<>();
+        this(16, 16);
+    }
+
+    private GameBoard(int expectedMaxRegionId, int expectedMaxSuperRegionId) {
+        this.regionIndex = new IdIndexedList<>(Region::getId, expectedMaxRegionId);
+        this.superRegionIndex = new IdIndexedList<>(SuperRegion::getId, expectedMaxSuperRegionId);
+        this.regions = regionIndex;
+        this.superRegions = superRegionIndex;
     }
 
+    /**
+     * Makes a map of copies of the given Regions and SuperRegions, like {@link #getMapCopy()}, so the maps the
+     * Regions are on keep them. Connections between the given Regions are kept.
+     */
     public GameBoard(List<Region> regions, List<SuperRegion> superRegions) {
         this();
-        this.regions.addAll(regions);
-        this.superRegions.addAll(superRegions);
+        for (SuperRegion superRegion : superRegions)
+            add(new SuperRegion(superRegion.getId(), superRegion.getArmiesReward()));
+        for (Region region : regions) {
+            if (regionIndex.containsId(region.getId())) {
+                System.err.println("Region cannot be added: id already exists.");
+                continue;
+            }
+            SuperRegion superRegion = getSuperRegion(region.getSuperRegion().getId());
+            if (superRegion == null) {
+                superRegion = new SuperRegion(region.getSuperRegion().getId(), region.getSuperRegion().getArmiesReward());
+                add(superRegion);
+            }
+            Region newRegion = new Region(region.getId(), superRegion, region.getPlayerName(), region.getArmies());
+            add(newRegion);
+            newRegion.setWasteland(region.isWasteland());
+            if (region.isVisible()) {
+                newRegion.setVisible(true);
+                visibleRegions.add(newRegion);
+            }
+        }
+        for (Region region : regions) { //keep connections between the given regions
+            GameBoard previous = region.getBoard();
+            if (previous == null)
+                continue;
+            int id = region.getId();
+            RegionGraph previousGraph = previous.getGraph();
+            for (int k = previousGraph.neighborStart(id); k < previousGraph.neighborEnd(id); k++)
+                if (regionIndex.containsId(previousGraph.neighborAt(k)))
+                    addNeighbor(id, previousGraph.neighborAt(k));
+        }
     }
 
     /**
@@ -34,12 +102,15 @@ public class GameBoard {
      * @param region : Region to be added
      */
     public void add(Region region) {
-        for (Region r : regions)
-            if (r.getId() == region.getId()) {
-                System.err.println("Region cannot be added: id already exists.");
-                return;
-            }
+        if (regionIndex.containsId(region.getId())) {
+            System.err.println("Region cannot be added: id already exists.");
+            return;
+        }
         regions.add(region);
+        region.setBoard(this);
+        getOwnerMask(region.getPlayerName()).set(region.getId());
+        visibleMask.set(region.getId(), region.isVisible());
+        wastelandMask.set(region.getId(), region.isWasteland());
     }
 
     /**
@@ -47,11 +118,10 @@ public class GameBoard {
      * @param superRegion : SuperRegion to be added
      */
     public void add(SuperRegion superRegion) {
-        for (SuperRegion s : superRegions)
-            if (s.getId() == superRegion.getId()) {
-                System.err.println("SuperRegion cannot be added: id already exists.");
-                return;
-            }
+        if (superRegionIndex.containsId(superRegion.getId())) {
+            System.err.println("SuperRegion cannot be added: id already exists.");
+            return;
+        }
         superRegions.add(superRegion);
     }
 
@@ -59,7 +129,7 @@ public class GameBoard {
      * @return : a new GameBoard object exactly the same as this one
      */
     public GameBoard getMapCopy() {
-        GameBoard newGameBoard = new GameBoard();
+        GameBoard newGameBoard = new GameBoard(regionIndex.idCapacity() - 1, superRegionIndex.idCapacity() - 1);
         for (SuperRegion sr : superRegions) //copy superRegions
         {
             SuperRegion newSuperRegion = new SuperRegion(sr.getId(), sr.getArmiesReward());
@@ -69,13 +139,16 @@ public class GameBoard {
         {
             Region newRegion = new Region(r.getId(), newGameBoard.getSuperRegion(r.getSuperRegion().getId()), r.getPlayerName(), r.getArmies());
             newGameBoard.add(newRegion);
+            newRegion.setWasteland(r.isWasteland());
         }
-        for (Region r : regions) //add neighbors to copied regions
+        for (Region r : visibleRegions) //copy fog of war
         {
             Region newRegion = newGameBoard.getRegion(r.getId());
-            for (Region neighbor : r.getNeighbors())
-                newRegion.addNeighbor(newGameBoard.getRegion(neighbor.getId()));
+            newRegion.setVisible(true);
+            newGameBoard.visibleRegions.add(newRegion);
         }
+        newGameBoard.graph = getGraph(); //the adjacency is immutable and shared between copies
+        newGameBoard.snapshotLayout = getSnapshotLayout();
         return newGameBoard;
     }
 
@@ -86,6 +159,195 @@ public class GameBoard {
         return regions;
     }
 
+    /**
+     * Connects two Regions in both directions. Connections are appended to a Builder the map keeps and packed
+     * into a new RegionGraph by the next call to {@link #getGraph()}, so the graph is only copied into a
+     * Builder once and only packed when a new connection is read. Connections the graph already has are skipped.
+     * @param regionId : a Region id
+     * @param neighborId : the id of a neighboring Region
+     */
+    public void addNeighbor(int regionId, int neighborId) {
+        if (!graphStale && graph.isNeighbor(regionId, neighborId))
+            return;
+        if (neighbors == null)
+            neighbors = graph.toBuilder();
+        neighbors.addEdge(regionId, neighborId);
+        graphStale = true;
+    }
+
+    /**
+     * @return : the adjacency of the Regions in this map, for allocation free neighbor iteration
+     */
+    public RegionGraph getGraph() {
+        if (graphStale) {
+            graph = neighbors.build();
+            graphStale = false;
+        }
+        return graph;
+    }
+
+    /**
+     * @param region : a Region of this map
+     * @param predicate : a condition on neighboring Regions
+     * @return : True if any neighbor of the Region matches the condition, false otherwise
+     */
+    public boolean anyNeighbor(Region region, Predicate<Region> predicate) {
+        RegionGraph graph = getGraph();
+        int end = graph.neighborEnd(region.getId());
+        for (int k = graph.neighborStart(region.getId()); k < end; k++)
+            if (predicate.test(getRegion(graph.neighborAt(k))))
+                return true;
+        return false;
+    }
+
+    /**
+     * @return : a counter that changes whenever a Region of this map changes owner
+     */
+    public long getOwnershipVersion() {
+        return ownershipVersion;
+    }
+
+    /**
+     * Called by a Region of this map after its owner changed.
+     */
+    void onOwnerChanged(Region region, String previousPlayerName) {
+        ownershipVersion++;
+        getOwnerMask(previousPlayerName).clear(region.getId());
+        getOwnerMask(region.getPlayerName()).set(region.getId());
+        for (int i = 0; i < frontiers.size(); i++)
+            frontiers.get(i).onOwnerChanged(region);
+    }
+
+    /**
+     * Called by a Region of this map after it became visible or fogged.
+     */
+    void onVisibilityChanged(Region region) {
+        visibleMask.set(region.getId(), region.isVisible());
+    }
+
+    /**
+     * Called by a Region of this map after its wasteland flag changed.
+     */
+    void onWastelandChanged(Region region) {
+        wastelandMask.set(region.getId(), region.isWasteland());
+    }
+
+    /**
+     * @return : the static layout shared by all {@link BoardSnapshot}s of this map, made again when Regions or
+     * connections were added
+     */
+    BoardSnapshot.Layout getSnapshotLayout() {
+        RegionGraph graph = getGraph();
+        if (snapshotLayout == null || snapshotLayout.graph != graph || snapshotLayout.regionCount != regions.size())
+            snapshotLayout = new BoardSnapshot.Layout(this, graph);
+        return snapshotLayout;
+    }
+
+    /**
+     * @param playerName : a player name, or "neutral" or "unknown"
+     * @return : the ids of the Regions owned by the player, kept up to date by this map
+     */
+    public RegionMask getOwnerMask(String playerName) {
+        RegionMask mask = ownerMasks.get(playerName);
+        if (mask == null) {
+            mask = new RegionMask();
+            ownerMasks.put(playerName, mask);
+        }
+        return mask;
+    }
+
+    /**
+     * @return : the ids of the Regions that are currently visible
+     */
+    public RegionMask getVisibleMask() {
+        return visibleMask;
+    }
+
+    /**
+     * @return : the ids of the Regions that are wastelands
+     */
+    public RegionMask getWastelandMask() {
+        return wastelandMask;
+    }
+
+    /**
+     * @return : True if the player owns every Region of the SuperRegion, false otherwise
+     */
+    public boolean ownsSuperRegion(String playerName, SuperRegion superRegion) {
+        return superRegion.getRegionMask().isSubsetOf(getOwnerMask(playerName));
+    }
+
+    /**
+     * @param playerName : the player whose frontier is kept
+     * @param enemyName : the opponent of the player
+     * @return : the Frontier of the player, created on the first call and kept up to date on every owner change
+     * after that
+     */
+    public Frontier getFrontier(String playerName, String enemyName) {
+        for (Frontier frontier : frontiers)
+            if (frontier.getPlayerName().equals(playerName) && frontier.getEnemyName().equals(enemyName))
+                return frontier;
+        Frontier frontier = new Frontier(this, playerName, enemyName);
+        frontiers.add(frontier);
+        return frontier;
+    }
+
+    /**
+     * @return : True if the given graph is the adjacency of this map and no connections were added since
+     */
+    boolean isCurrentGraph(RegionGraph graph) {
+        return !graphStale && this.graph == graph;
+    }
+
+    /**
+     * @return : the Regions that were given in the last map update, in the order they were given
+     */
+    public List<Region> getVisibleRegions() {
+        return visibleRegions;
+    }
+
+    /**
+     * Starts a fog of war update. All currently visible Regions are flagged invisible until they are given
+     * again with {@link #updateVisibleRegion}. The cost is proportional to the number of visible Regions.
+     */
+    public void beginVisibilityUpdate() {
+        List<Region> swap = previouslyVisibleRegions;
+        previouslyVisibleRegions = visibleRegions;
+        visibleRegions = swap;
+        visibleRegions.clear();
+        for (Region region : previouslyVisibleRegions)
+            region.setVisible(false);
+    }
+
+    /**
+     * Marks a Region visible with its current owner and armies.
+     * @param region : a Region of this map
+     * @param playerName : the owner given in the map update
+     * @param armies : the armies given in the map update
+     */
+    public void updateVisibleRegion(Region region, String playerName, int armies) {
+        region.setPlayerName(playerName);
+        region.setArmies(armies);
+        if (!region.isVisible() && !playerName.equals("unknown")) {
+            region.setVisible(true);
+            visibleRegions.add(region);
+        }
+    }
+
+    /**
+     * Ends a fog of war update. Regions that were visible before but weren't given again are reset to an
+     * unknown owner without armies.
+     */
+    public void endVisibilityUpdate() {
+        for (Region region : previouslyVisibleRegions) {
+            if (!region.isVisible()) {
+                region.setPlayerName("unknown");
+                region.setArmies(0);
+            }
+        }
+        previouslyVisibleRegions.clear();
+    }
+
     /**
      * @return : the list of all SuperRegions in this map
      */
@@ -98,10 +360,7 @@ public class GameBoard {
      * @return : the matching Region object
      */
     public Region getRegion(int id) {
-        for (Region region : regions)
-            if (region.getId() == id)
-                return region;
-        return null;
+        return regionIndex.getById(id);
     }
 
     /**
@@ -109,18 +368,30 @@ public class GameBoard {
      * @return : the matching SuperRegion object
      */
     public SuperRegion getSuperRegion(int id) {
-        for (SuperRegion superRegion : superRegions)
-            if (superRegion.getId() == id)
-                return superRegion;
-        return null;
+        return superRegionIndex.getById(id);
+    }
+
+    /**
+     * @return : one more than the largest Region id this map can index, useful for sizing arrays indexed by Region id
+     */
+    public int getRegionIdBound() {
+        return regionIndex.idCapacity();
+    }
+
+    /**
+     * @return : one more than the largest SuperRegion id this map can index
+     */
+    public int getSuperRegionIdBound() {
+        return superRegionIndex.idCapacity();
     }
 
     public String getMapString() {
-        String mapString = "";
+        StringBuilder mapString = new StringBuilder();
         for (Region region : regions) {
-            mapString = mapString.concat(region.getId() + ";" + region.getPlayerName() + ";" + region.getArmies() + " ");
+            mapString.append(region.getId()).append(';').append(region.getPlayerName()).append(';')
+                    .append(region.getArmies()).append(' ');
         }
-        return mapString;
+        return mapString.toString();
     }
 
 }
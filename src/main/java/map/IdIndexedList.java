@@ -0,0 +1,134 @@
+package map;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * An array backed list of map elements that also keeps a dense id to element table, so elements can be
+ * looked up by id in constant time. The table stays in sync with every structural change made through
+ * the list, including removals through iterators or {@link #removeIf}.
+ */
+class IdIndexedList<T> extends AbstractList<T> {
+    private final ArrayList<T> elements;
+    private final ToIntFunction<T> idOf;
+    private Object[] byId;
+
+    IdIndexedList(ToIntFunction<T> idOf) {
+        this(idOf, 16);
+    }
+
+    IdIndexedList(ToIntFunction<T> idOf, int expectedMaxId) {
+        this.elements = new ArrayList<>(expectedMaxId);
+        this.idOf = idOf;
+        this.byId = new Object[Math.max(expectedMaxId + 1, 1)];
+    }
+
+    /**
+     * @param id an element id
+     * @return the element with this id, or null when no such element is in the list
+     */
+    @SuppressWarnings("unchecked")
+    T getById(int id) {
+        return id >= 0 && id < byId.length ? (T) byId[id] : null;
+    }
+
+    boolean containsId(int id) {
+        return getById(id) != null;
+    }
+
+    /**
+     * @return one more than the largest id this list can currently index without growing
+     */
+    int idCapacity() {
+        return byId.length;
+    }
+
+    @Override
+    public T get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public void add(int index, T element) {
+        int id = idOf.applyAsInt(element);
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id " + id);
+        }
+        if (containsId(id)) {
+            throw new IllegalArgumentException("Id " + id + " already exists");
+        }
+        elements.add(index, element);
+        ensureIdCapacity(id);
+        byId[id] = element;
+        modCount++;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        int id = idOf.applyAsInt(element);
+        T old = elements.get(index);
+        int oldId = idOf.applyAsInt(old);
+        if (id != oldId && containsId(id)) {
+            throw new IllegalArgumentException("Id " + id + " already exists");
+        }
+        elements.set(index, element);
+        byId[oldId] = null;
+        ensureIdCapacity(id);
+        byId[id] = element;
+        return old;
+    }
+
+    @Override
+    public T remove(int index) {
+        T old = elements.remove(index);
+        byId[idOf.applyAsInt(old)] = null;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexableId(o) >= 0;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (indexableId(o) < 0) {
+            return false;
+        }
+        return super.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        elements.clear();
+        Arrays.fill(byId, null);
+        modCount++;
+    }
+
+    /**
+     * @return the id of o if an equal element is indexed, -1 otherwise
+     */
+    @SuppressWarnings("unchecked")
+    private int indexableId(Object o) {
+        if (o == null || elements.isEmpty() || !elements.get(0).getClass().isInstance(o)) {
+            return -1;
+        }
+        int id = idOf.applyAsInt((T) o);
+        T indexed = getById(id);
+        return indexed != null && indexed.equals(o) ? id : -1;
+    }
+
+    private void ensureIdCapacity(int id) {
+        if (id >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(id + 1, byId.length * 2));
+        }
+    }
+}
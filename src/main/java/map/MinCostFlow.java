@@ -0,0 +1,246 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * Minimum cost flow on a directed network with integer capacities and non negative integer costs.
+ * <p>
+ * Solved primal-dual: a Dijkstra search on the reduced costs updates the node potentials, then a blocking flow
+ * as in Dinic's algorithm is pushed over the edges whose reduced cost is 0 before the next search. The number of
+ * searches is bounded by the number of distinct path costs rather than the number of augmenting paths, so
+ * networks with thousands of nodes and uncapacitated edges solve quickly. Edges are kept in int arrays, an edge
+ * and its residual reverse edge are neighbors, e and e ^ 1.
+ */
+public class MinCostFlow {
+    private static final long UNREACHED = Long.MAX_VALUE;
+
+    private final int nodeCount;
+    private final int[] head;
+    private int[] next = new int[16];
+    private int[] to = new int[16];
+    private int[] capacity = new int[16];
+    private int[] cost = new int[16];
+    private int edgeCount;
+
+    private long[] potential;
+    private long[] distance;
+    private int[] level;
+    private int[] current;
+    private int[] queue;
+    private long totalCost;
+
+    public MinCostFlow(int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.head = new int[nodeCount];
+        Arrays.fill(head, -1);
+    }
+
+    /**
+     * @return the index of the new edge, see {@link #getFlow(int)}
+     */
+    public int addEdge(int from, int to, int capacity, int cost) {
+        if (cost < 0 || capacity < 0)
+            throw new IllegalArgumentException("Negative cost or capacity " + cost + ", " + capacity);
+        int edge = edgeCount;
+        append(from, to, capacity, cost);
+        append(to, from, 0, -cost);
+        return edge;
+    }
+
+    private void append(int from, int target, int edgeCapacity, int edgeCost) {
+        if (edgeCount == to.length) {
+            next = Arrays.copyOf(next, edgeCount * 2);
+            to = Arrays.copyOf(to, edgeCount * 2);
+            capacity = Arrays.copyOf(capacity, edgeCount * 2);
+            cost = Arrays.copyOf(cost, edgeCount * 2);
+        }
+        next[edgeCount] = head[from];
+        to[edgeCount] = target;
+        capacity[edgeCount] = edgeCapacity;
+        cost[edgeCount] = edgeCost;
+        head[from] = edgeCount++;
+    }
+
+    /**
+     * Sends as much flow as possible, up to the limit, from source to sink at the least cost.
+     * @return the amount of flow sent
+     */
+    public int solve(int source, int sink, int limit) {
+        potential = new long[nodeCount];
+        distance = new long[nodeCount];
+        level = new int[nodeCount];
+        current = new int[nodeCount];
+        queue = new int[nodeCount];
+        totalCost = 0;
+        int flow = 0;
+
+        while (flow < limit && updatePotentials(source, sink)) {
+            while (flow < limit && buildLevels(source, sink)) {
+                System.arraycopy(head, 0, current, 0, nodeCount);
+                int pushed;
+                while (flow < limit && (pushed = push(source, sink, limit - flow)) > 0)
+                    flow += pushed;
+            }
+        }
+        return flow;
+    }
+
+    /**
+     * @return the flow over an edge returned by {@link #addEdge(int, int, int, int)}
+     */
+    public int getFlow(int edge) {
+        return capacity[edge ^ 1];
+    }
+
+    /**
+     * @return the node an edge returned by {@link #addEdge(int, int, int, int)} leads to
+     */
+    public int getTarget(int edge) {
+        return to[edge];
+    }
+
+    /**
+     * @return the cost of the flow sent by the last {@link #solve(int, int, int)}
+     */
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    private long reducedCost(int from, int edge) {
+        return cost[edge] + potential[from] - potential[to[edge]];
+    }
+
+    /**
+     * Dijkstra on the reduced costs. Nodes settled before the sink move their potential so that every edge on
+     * a shortest path gets a reduced cost of 0 and no residual edge gets a negative one.
+     * @return True if the sink can be reached, false otherwise
+     */
+    private boolean updatePotentials(int source, int sink) {
+        Arrays.fill(distance, UNREACHED);
+        boolean[] settled = new boolean[nodeCount];
+        LongHeap heap = new LongHeap();
+        distance[source] = 0;
+        heap.add(0, source);
+        while (!heap.isEmpty()) {
+            int node = heap.peekNode();
+            long d = heap.poll();
+            if (settled[node])
+                continue;
+            settled[node] = true;
+            if (node == sink)
+                break;
+            for (int e = head[node]; e >= 0; e = next[e]) {
+                if (capacity[e] == 0)
+                    continue;
+                long candidate = d + reducedCost(node, e);
+                if (candidate < distance[to[e]]) {
+                    distance[to[e]] = candidate;
+                    heap.add(candidate, to[e]);
+                }
+            }
+        }
+        if (!settled[sink])
+            return false;
+        for (int node = 0; node < nodeCount; node++)
+            if (settled[node])
+                potential[node] += distance[node] - distance[sink];
+        return true;
+    }
+
+    /**
+     * Breadth first search over the residual edges with reduced cost 0.
+     * @return True if the sink is reached, false otherwise
+     */
+    private boolean buildLevels(int source, int sink) {
+        Arrays.fill(level, -1);
+        int headIndex = 0;
+        int tail = 0;
+        level[source] = 0;
+        queue[tail++] = source;
+        while (headIndex < tail) {
+            int node = queue[headIndex++];
+            for (int e = head[node]; e >= 0; e = next[e]) {
+                if (capacity[e] > 0 && level[to[e]] < 0 && reducedCost(node, e) == 0) {
+                    level[to[e]] = level[node] + 1;
+                    queue[tail++] = to[e];
+                }
+            }
+        }
+        return level[sink] >= 0;
+    }
+
+    /**
+     * Finds one path along increasing levels and sends flow over it, skipping edges found to be dead ends.
+     * @return the flow sent, 0 if there is no path left
+     */
+    private int push(int node, int sink, int limit) {
+        if (node == sink)
+            return limit;
+        for (; current[node] >= 0; current[node] = next[current[node]]) {
+            int e = current[node];
+            int target = to[e];
+            if (capacity[e] > 0 && level[target] == level[node] + 1 && reducedCost(node, e) == 0) {
+                int pushed = push(target, sink, Math.min(limit, capacity[e]));
+                if (pushed > 0) {
+                    capacity[e] -= pushed;
+                    capacity[e ^ 1] += pushed;
+                    totalCost += (long) pushed * cost[e];
+                    return pushed;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A binary min heap of distances with the node of each.
+     */
+    private static class LongHeap {
+        private long[] keys = new long[16];
+        private int[] nodes = new int[16];
+        private int size;
+
+        void add(long key, int node) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && keys[(i - 1) / 2] > key) {
+                keys[i] = keys[(i - 1) / 2];
+                nodes[i] = nodes[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peekNode() {
+            return nodes[0];
+        }
+
+        long poll() {
+            long top = keys[0];
+            long key = keys[--size];
+            int node = nodes[size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child])
+                    child++;
+                if (keys[child] >= key)
+                    break;
+                keys[i] = keys[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+            return top;
+        }
+    }
+}
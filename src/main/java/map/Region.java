@@ -10,22 +10,24 @@
 
 package map;
 
-import java.util.LinkedList;
-import java.util.Objects;
+import java.util.AbstractList;
+import java.util.List;
 
 
 public class Region {
 
     private int id;
-    private LinkedList<Region> neighbors;
+    private GameBoard board;
+    private final List<Region> neighbors = new NeighborList();
     private SuperRegion superRegion;
     private int armies;
     private String playerName;
+    private boolean visible;
+    private boolean wasteland;
 
     public Region(int id, SuperRegion superRegion) {
         this.id = id;
         this.superRegion = superRegion;
-        this.neighbors = new LinkedList<>();
         this.playerName = "unknown";
         this.armies = 0;
 
@@ -35,18 +37,22 @@ public class Region {
     public Region(int id, SuperRegion superRegion, String playerName, int armies) {
         this.id = id;
         this.superRegion = superRegion;
-        this.neighbors = new LinkedList<>();
         this.playerName = playerName;
         this.armies = armies;
 
         superRegion.addSubRegion(this);
     }
 
+    /**
+     * Connects this Region and the given Region in both directions on the GameBoard this Region was added to.
+     * Maps parsed by BotState are connected in bulk with {@link GameBoard#addNeighbor(int, int)} instead.
+     * @param neighbor a Region on the same GameBoard
+     */
     public void addNeighbor(Region neighbor) {
-        if (!neighbors.contains(neighbor)) {
-            neighbors.add(neighbor);
-            neighbor.addNeighbor(this);
+        if (board == null) {
+            throw new IllegalStateException("Region " + id + " has to be added to a GameBoard before it gets neighbors");
         }
+        board.addNeighbor(id, neighbor.getId());
     }
 
     /**
@@ -54,7 +60,7 @@ public class Region {
      * @return True if this Region is a neighbor of given Region, false otherwise
      */
     public boolean isNeighbor(Region region) {
-        return neighbors.contains(region);
+        return board != null && board.getGraph().isNeighbor(id, region.getId());
     }
 
     /**
@@ -76,7 +82,46 @@ public class Region {
      * @param playerName Sets the Name of the player that this Region belongs to
      */
     public void setPlayerName(String playerName) {
+        String previousPlayerName = this.playerName;
         this.playerName = playerName;
+        if (playerName.equals(previousPlayerName))
+            return;
+        if (board != null)
+            board.onOwnerChanged(this, previousPlayerName);
+    }
+
+    /**
+     * @param visible Sets whether this Region is currently visible to the player, i.e. not covered by fog of war
+     */
+    void setVisible(boolean visible) {
+        this.visible = visible;
+        if (board != null)
+            board.onVisibilityChanged(this);
+    }
+
+    /**
+     * @return True if this Region was given in the last map update, false if it is covered by fog of war
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * @param wasteland Sets whether this Region is a wasteland, i.e. a neutral region with a larger amount of armies
+     */
+    public void setWasteland(boolean wasteland) {
+        if (this.wasteland == wasteland)
+            return;
+        this.wasteland = wasteland;
+        if (board != null)
+            board.onWastelandChanged(this);
+    }
+
+    /**
+     * @return True if this Region was given as a wasteland at setup, false otherwise
+     */
+    public boolean isWasteland() {
+        return wasteland;
     }
 
     /**
@@ -87,12 +132,24 @@ public class Region {
     }
 
     /**
-     * @return A list of this Region's neighboring Regions
+     * @return A read only list of this Region's neighboring Regions. It is a view on the adjacency of the GameBoard,
+     * hot loops should walk {@link GameBoard#getGraph()} instead.
      */
-    public LinkedList<Region> getNeighbors() {
+    public List<Region> getNeighbors() {
         return neighbors;
     }
 
+    /**
+     * @return The GameBoard this Region was added to, or null
+     */
+    public GameBoard getBoard() {
+        return board;
+    }
+
+    void setBoard(GameBoard board) {
+        this.board = board;
+    }
+
     /**
      * @return The SuperRegion this Region is part of
      */
@@ -114,6 +171,27 @@ public class Region {
         return playerName;
     }
 
+    private class NeighborList extends AbstractList<Region> {
+        @Override
+        public Region get(int index) {
+            if (board == null || index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            RegionGraph graph = board.getGraph();
+            return board.getRegion(graph.neighborAt(graph.neighborStart(id) + index));
+        }
+
+        @Override
+        public int size() {
+            return board == null ? 0 : board.getGraph().degree(id);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Region && isNeighbor((Region) o);
+        }
+    }
+
     @Override
     public String toString() {
         return "Region: [id: " + id + ", Onwer: " + playerName + ", Armies: " + armies +
@@ -0,0 +1,146 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * Immutable adjacency of the Regions of a map in compressed sparse row form. The neighbors of the Region
+ * with id {@code id} are {@code neighborAt(k)} for {@code neighborStart(id) <= k < neighborEnd(id)},
+ * sorted by id. Walking the graph this way touches two int arrays and allocates nothing.
+ */
+public final class RegionGraph {
+    public static final RegionGraph EMPTY = new RegionGraph(new int[1], new int[0]);
+
+    private final int[] offsets;
+    private final int[] neighbors;
+
+    private RegionGraph(int[] offsets, int[] neighbors) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * @return one more than the largest Region id in this graph
+     */
+    public int getIdBound() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return the number of undirected connections in this graph
+     */
+    public int getEdgeCount() {
+        return neighbors.length / 2;
+    }
+
+    /**
+     * @param id a Region id
+     * @return the index of the first neighbor of the Region
+     */
+    public int neighborStart(int id) {
+        return id >= 0 && id < offsets.length - 1 ? offsets[id] : 0;
+    }
+
+    /**
+     * @param id a Region id
+     * @return one past the index of the last neighbor of the Region
+     */
+    public int neighborEnd(int id) {
+        return id >= 0 && id < offsets.length - 1 ? offsets[id + 1] : 0;
+    }
+
+    /**
+     * @param index an index between neighborStart and neighborEnd of some Region
+     * @return the id of the neighbor at that index
+     */
+    public int neighborAt(int index) {
+        return neighbors[index];
+    }
+
+    /**
+     * @param id a Region id
+     * @return the number of neighbors of the Region
+     */
+    public int degree(int id) {
+        return neighborEnd(id) - neighborStart(id);
+    }
+
+    /**
+     * @return True if the two Regions are connected, false otherwise
+     */
+    public boolean isNeighbor(int id, int otherId) {
+        int start = neighborStart(id);
+        int end = neighborEnd(id);
+        return start < end && Arrays.binarySearch(neighbors, start, end, otherId) >= 0;
+    }
+
+    /**
+     * @return a Builder that already contains all connections of this graph
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        for (int id = 0; id < getIdBound(); id++)
+            for (int k = offsets[id]; k < offsets[id + 1]; k++)
+                if (id < neighbors[k])
+                    builder.addEdge(id, neighbors[k]);
+        return builder;
+    }
+
+    /**
+     * Collects undirected connections and packs them into a RegionGraph. Duplicate connections and
+     * connections of a Region to itself are dropped.
+     */
+    public static class Builder {
+        private int[] from = new int[64];
+        private int[] to = new int[64];
+        private int size;
+        private int idBound;
+
+        public Builder addEdge(int id, int otherId) {
+            if (id < 0 || otherId < 0) {
+                throw new IllegalArgumentException("Negative region id");
+            }
+            if (id == otherId) {
+                return this;
+            }
+            if (size + 2 > from.length) {
+                from = Arrays.copyOf(from, from.length * 2);
+                to = Arrays.copyOf(to, to.length * 2);
+            }
+            from[size] = id;
+            to[size++] = otherId;
+            from[size] = otherId;
+            to[size++] = id;
+            idBound = Math.max(idBound, Math.max(id, otherId) + 1);
+            return this;
+        }
+
+        public RegionGraph build() {
+            int[] offsets = new int[idBound + 1];
+            for (int i = 0; i < size; i++)
+                offsets[from[i] + 1]++;
+            for (int id = 0; id < idBound; id++)
+                offsets[id + 1] += offsets[id];
+
+            int[] fill = Arrays.copyOf(offsets, idBound);
+            int[] neighbors = new int[size];
+            for (int i = 0; i < size; i++)
+                neighbors[fill[from[i]]++] = to[i];
+
+            //sort and drop duplicates in place, then compact the rows
+            int write = 0;
+            int rowStart = 0;
+            for (int id = 0; id < idBound; id++) {
+                int rowEnd = offsets[id + 1];
+                Arrays.sort(neighbors, rowStart, rowEnd);
+                offsets[id] = write;
+                for (int k = rowStart; k < rowEnd; k++)
+                    if (k == rowStart || neighbors[k] != neighbors[k - 1])
+                        neighbors[write++] = neighbors[k];
+                rowStart = rowEnd;
+            }
+            offsets[idBound] = write;
+
+            return new RegionGraph(offsets, write == size ? neighbors : Arrays.copyOf(neighbors, write));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * A set of Region ids as a bitset in a long array, so set questions like "do I own all Regions of this
+ * SuperRegion" are a few word-wise ANDs and bit counts. Masks are read only outside of this package, the
+ * GameBoard and SuperRegions keep them up to date.
+ */
+public final class RegionMask {
+    private long[] words;
+
+    RegionMask() {
+        this.words = new long[1];
+    }
+
+    /**
+     * @return True if the Region id is in this mask, false otherwise
+     */
+    public boolean get(int id) {
+        int word = id >>> 6;
+        return id >= 0 && word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    void set(int id, boolean value) {
+        if (value)
+            set(id);
+        else
+            clear(id);
+    }
+
+    void set(int id) {
+        int word = id >>> 6;
+        if (word >= words.length)
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        words[word] |= 1L << id;
+    }
+
+    void clear(int id) {
+        int word = id >>> 6;
+        if (word < words.length)
+            words[word] &= ~(1L << id);
+    }
+
+    /**
+     * @return the number of Region ids in this mask
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * @return the number of Region ids in both this mask and the other one
+     */
+    public int andCardinality(RegionMask other) {
+        int count = 0;
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++)
+            count += Long.bitCount(words[i] & other.words[i]);
+        return count;
+    }
+
+    /**
+     * @return True if every Region id in this mask is in the other one, false otherwise
+     */
+    public boolean isSubsetOf(RegionMask other) {
+        for (int i = 0; i < words.length; i++)
+            if ((i < other.words.length ? words[i] & ~other.words[i] : words[i]) != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * @return the first Region id from the given one on that is in this mask, or -1
+     */
+    public int nextSetBit(int from) {
+        return nextSetBitAndNot(null, from);
+    }
+
+    /**
+     * @param other a mask to leave out, or null
+     * @return the first Region id from the given one on that is in this mask and not in the other one, or -1
+     */
+    public int nextSetBitAndNot(RegionMask other, int from) {
+        int word = from >>> 6;
+        if (from < 0 || word >= words.length)
+            return -1;
+        long bits = andNot(other, word) & (-1L << from);
+        while (bits == 0) {
+            if (++word == words.length)
+                return -1;
+            bits = andNot(other, word);
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    private long andNot(RegionMask other, int word) {
+        return other == null || word >= other.words.length ? words[word] : words[word] & ~other.words[word];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder ids = new StringBuilder("[");
+        for (int id = nextSetBit(0); id >= 0; id = nextSetBit(id + 1))
+            ids.append(ids.length() > 1 ? ", " : "").append(id);
+        return ids.append(']').toString();
+    }
+}
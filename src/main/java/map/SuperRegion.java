@@ -10,31 +10,42 @@
 
 package map;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Ownership is answered by the owner masks of the GameBoard, see
+ * {@link GameBoard#ownsSuperRegion(String, SuperRegion)}.
+ */
 public class SuperRegion {
 
     private int id;
     private int armiesReward;
-    private LinkedList<Region> subRegions;
+    private ArrayList<Region> subRegions;
+    private RegionMask subRegionIds;
 
     public SuperRegion(int id, int armiesReward) {
         this.id = id;
         this.armiesReward = armiesReward;
-        subRegions = new LinkedList<Region>();
+        subRegions = new ArrayList<Region>();
+        subRegionIds = new RegionMask();
     }
 
     public void addSubRegion(Region subRegion) {
-        if (!subRegions.contains(subRegion))
+        if (!subRegionIds.get(subRegion.getId())) {
+            subRegionIds.set(subRegion.getId());
             subRegions.add(subRegion);
+        }
     }
 
     /**
      * @return A string with the name of the player that fully owns this SuperRegion
      */
     public String ownedByPlayer() {
-        String playerName = subRegions.getFirst().getPlayerName();
+        Region first = subRegions.get(0);
+        String playerName = first.getPlayerName();
+        if (first.getBoard() != null)
+            return first.getBoard().ownsSuperRegion(playerName, this) ? playerName : null;
         for (Region region : subRegions) {
             if (!playerName.equals(region.getPlayerName()))
                 return null;
@@ -42,6 +53,13 @@ public class SuperRegion {
         return playerName;
     }
 
+    /**
+     * @return The ids of the Regions that are part of this SuperRegion
+     */
+    public RegionMask getRegionMask() {
+        return subRegionIds;
+    }
+
     /**
      * @return The id of this SuperRegion
      */
@@ -60,14 +60,15 @@ public class AttackTransferMove extends Move {
     }
 
     /**
-     * @return A string representation of this Move
+     * Appends the representation of this Move, e.g. "player1 attack/transfer 3 4 5"
      */
     @Override
-    public String toString() {
-        if (getIllegalMove().equals(""))
-            return getPlayerName() + " attack/transfer " + fromRegion.getId() + " " + toRegion.getId() + " " + armies;
+    public void appendTo(StringBuilder out) {
+        if (isLegal())
+            out.append(getPlayerName()).append(" attack/transfer ").append(fromRegion.getId()).append(' ')
+                    .append(toRegion.getId()).append(' ').append(armies);
         else
-            return getPlayerName() + " illegal_move " + getIllegalMove();
+            super.appendTo(out);
     }
 
 }
@@ -43,4 +43,29 @@ public class Move {
         return illegalMove;
     }
 
+    /**
+     * @return True if no error message was set on this Move, false otherwise
+     */
+    public boolean isLegal() {
+        return illegalMove.isEmpty();
+    }
+
+    /**
+     * Appends the engine representation of this Move to a buffer without building intermediate Strings.
+     * @param out the buffer to append to
+     */
+    public void appendTo(StringBuilder out) {
+        out.append(playerName).append(" illegal_move ").append(illegalMove);
+    }
+
+    /**
+     * @return A string representation of this Move
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(48);
+        appendTo(out);
+        return out.toString();
+    }
+
 }
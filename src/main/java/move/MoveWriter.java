@@ -0,0 +1,75 @@
+package move;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Writes responses for the engine. All Moves of a phase are serialized into one reusable buffer and written
+ * with a single write and flush, instead of concatenating a String per Move.
+ */
+public class MoveWriter {
+
+    private final OutputStream out;
+    private final StringBuilder buffer = new StringBuilder(1 << 12);
+    private byte[] bytes = new byte[1 << 12];
+    private int length;
+
+    public MoveWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the Moves of one phase as a comma separated line, or "No moves" if there are none.
+     * @param moves the Moves to send to the engine
+     */
+    public void writeMoves(List<? extends Move> moves) {
+        buffer.setLength(0);
+        for (int i = 0; i < moves.size(); i++) {
+            moves.get(i).appendTo(buffer);
+            buffer.append(',');
+        }
+        if (buffer.length() == 0)
+            buffer.append("No moves");
+        flushLine();
+    }
+
+    /**
+     * Writes a single value as a line, e.g. the id of a picked starting Region.
+     */
+    public void writeLine(int value) {
+        buffer.setLength(0);
+        buffer.append(value);
+        flushLine();
+    }
+
+    /**
+     * @return the buffer holding the last line written, only valid until the next line is written
+     */
+    public byte[] getLineBuffer() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of bytes of the last line in {@link #getLineBuffer()}, without the line break
+     */
+    public int getLineLength() {
+        return Math.max(0, length - 1);
+    }
+
+    private void flushLine() {
+        buffer.append('\n');
+        length = buffer.length();
+        if (bytes.length < length)
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+        for (int i = 0; i < length; i++) //the protocol is plain ASCII
+            bytes[i] = (byte) buffer.charAt(i);
+        try {
+            out.write(bytes, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
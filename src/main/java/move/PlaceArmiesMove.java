@@ -50,15 +50,14 @@ public class PlaceArmiesMove extends Move {
     }
 
     /**
-     * @return A string representation of this Move
+     * Appends the representation of this Move, e.g. "player1 place_armies 3 2"
      */
     @Override
-    public String toString() {
-        if (getIllegalMove().equals(""))
-            return getPlayerName() + " place_armies " + region.getId() + " " + armies;
+    public void appendTo(StringBuilder out) {
+        if (isLegal())
+            out.append(getPlayerName()).append(" place_armies ").append(region.getId()).append(' ').append(armies);
         else
-            return getPlayerName() + " illegal_move " + getIllegalMove();
-
+            super.appendTo(out);
     }
 
 }
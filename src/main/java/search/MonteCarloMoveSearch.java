@@ -0,0 +1,536 @@
+package search;
+
+import bot.BotParameters;
+import bot.CombatModel;
+import bot.Deadline;
+import log.Logger;
+import map.GameBoard;
+import map.RegionGraph;
+import move.AttackTransferMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo tree search over the attack/transfer orders of one round.
+ * <p>
+ * The Regions that can act are searched one after another, one tree level per Region. The options of a
+ * Region are the orders the current plan gives it, holding, attacking a neighbor with everything or with
+ * just enough armies, and moving everything to a neighbor closer to the enemy. Battles are sampled from the
+ * {@link CombatModel} and the resulting state is scored by the {@link StateEvaluator}.
+ * <p>
+ * The search is root parallel: every worker of a ForkJoinPool grows its own tree with its own random numbers
+ * and scratch state until the Deadline, then the trees are merged by summing the visits along the best path.
+ * The winning orders replace the plan only if they beat it on the same random battles.
+ * <p>
+ * A {@link TranspositionTable} shared by the workers memoizes the evaluation of every state reached by a
+ * rollout, and the choice found for a root state and plan together with the number of simulations behind it,
+ * so a later search of the same position starts from the better of its own and the remembered choice. A
+ * choice found by {@link #ponder} before the round was asked for is picked up the same way.
+ */
+public class MonteCarloMoveSearch {
+    private static Logger log = new Logger(MonteCarloMoveSearch.class.getSimpleName());
+    private static final int BASELINE = 0;
+    private static final long MIN_MILLIS = 20; //the move search isn't started with less time left
+    private static final double TIME_FRACTION = .8; //share of the time left spent growing the trees
+    private static final int MAX_SOURCES = 10; //Regions whose orders are searched, largest armies first
+    private static final double MIN_WIN_PROBABILITY = .3; //weaker attacks aren't considered
+    private static final double EXPLORATION = .7;
+    private static final double ROLLOUT_BASELINE_PROBABILITY = .5;
+    private static final int CONFIRM_SIMULATIONS = 200;
+    private static final double MIN_IMPROVEMENT = .002; //average reward the search has to gain over the plan
+    private static final int TABLE_SIZE_LOG2 = 16; //the transposition table holds 2^16 entries of 16 bytes
+    private static final long SUFFICIENT_VISITS = 200000; //a choice remembered with this many simulations is reused
+
+    private final CombatModel combatModel;
+    private final StateEvaluator evaluator;
+    private final double attackWinProbability;
+    private final int workers;
+    private ForkJoinPool pool; //made by the first search, like the table, so a bot given no time holds neither
+    private TranspositionTable table;
+    private long seed = System.nanoTime();
+
+    public MonteCarloMoveSearch(CombatModel combatModel, StateEvaluator evaluator, BotParameters parameters,
+                                int workers) {
+        this.combatModel = combatModel;
+        this.evaluator = evaluator;
+        this.attackWinProbability = parameters.getAttackWinProbability();
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * @param root the state before any attack or transfer of the round
+     * @param board the board the moves refer to
+     * @param myName my player name
+     * @param plan the current plan
+     * @param deadline the time by which the search has to return
+     * @return better moves than the plan, or null if none were found
+     */
+    public List<AttackTransferMove> improve(SearchState root, GameBoard board, String myName,
+                                            List<AttackTransferMove> plan, Deadline deadline) {
+        if (deadline.remainingMillis() < MIN_MILLIS) {
+            return null;
+        }
+        Problem problem = new Problem(root, plan, combatModel, attackWinProbability);
+        if (problem.sources.length == 0) {
+            return null;
+        }
+        start();
+
+        int[] choice = new int[problem.sources.length];
+        int effort = recallChoice(problem, choice);
+        if (effort < effort(SUFFICIENT_VISITS)) {
+            int[] searched = new int[choice.length];
+            long visits = search(problem, deadline.fraction(TIME_FRACTION), searched);
+            if (visits < 0) {
+                return null;
+            }
+            if (effort(visits) > effort) {
+                choice = searched;
+                effort = effort(visits);
+            } else {
+                log.debug("Using remembered choice %s", Arrays.toString(choice));
+            }
+        } else {
+            log.debug("Using remembered choice %s without searching", Arrays.toString(choice));
+        }
+        storeChoice(problem, choice, effort);
+        if (isBaseline(choice) || !confirm(problem, choice, deadline)) {
+            return null;
+        }
+        return problem.toMoves(choice, board, myName);
+    }
+
+    /**
+     * Searches a round that hasn't been asked for yet, e.g. while the engine waits for the opponent. The
+     * choice is only remembered in the table, where {@link #improve} finds it if it is given the same root
+     * state and plan.
+     * @param root the state before any attack or transfer of the round
+     * @param plan the plan the round is expected to start from
+     * @param deadline stops the search, usually by being cancelled
+     */
+    public void ponder(SearchState root, List<AttackTransferMove> plan, Deadline deadline) {
+        Problem problem = new Problem(root, plan, combatModel, attackWinProbability);
+        if (problem.sources.length == 0) {
+            return;
+        }
+        start();
+
+        int[] choice = new int[problem.sources.length];
+        long visits = search(problem, deadline, choice);
+        if (visits > 0 && effort(visits) > recallChoice(problem, new int[choice.length])) {
+            storeChoice(problem, choice, effort(visits));
+            log.debug("Pondered %d sources in %d iterations, choice %s", problem.sources.length, visits,
+                    Arrays.toString(choice));
+        }
+    }
+
+    /**
+     * Makes the worker pool and the table on first use and starts a new generation of the table.
+     */
+    private void start() {
+        if (pool == null) {
+            pool = new ForkJoinPool(workers);
+            table = new TranspositionTable(TABLE_SIZE_LOG2);
+        }
+        table.newGeneration();
+    }
+
+    /**
+     * Grows a tree per worker until the Deadline and merges them.
+     * @param choice receives the best options found
+     * @return the number of simulations, or -1 if the search was interrupted
+     */
+    private long search(Problem problem, Deadline deadline, int[] choice) {
+        List<Callable<Node>> tasks = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            long workerSeed = seed++;
+            tasks.add(() -> new Worker(problem, workerSeed).search(deadline));
+        }
+        List<Node> trees = new ArrayList<>();
+        for (Future<Node> future : pool.invokeAll(tasks)) {
+            try {
+                trees.add(future.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return -1;
+            } catch (ExecutionException ex) {
+                log.error("Exception in search worker.", ex.getCause());
+            }
+        }
+
+        System.arraycopy(mergeBestPath(problem, trees), 0, choice, 0, choice.length);
+        long visits = trees.stream().mapToLong(t -> t.visits).sum();
+        log.debug(() -> String.format("Searched %d sources in %d iterations, choice %s",
+                problem.sources.length, visits, Arrays.toString(choice)));
+        return visits;
+    }
+
+    /**
+     * @return a depth for the table that grows with the logarithm of the simulations behind a choice
+     */
+    private static int effort(long visits) {
+        return (int) Math.min(Math.log1p(visits) * 1000, TranspositionTable.MAX_DEPTH - 1) + 1;
+    }
+
+    /**
+     * @param choice receives the choice remembered for the same problem, if there is one
+     * @return the effort of the remembered choice, or 0 if there is none
+     */
+    private int recallChoice(Problem problem, int[] choice) {
+        int[] remembered = new int[choice.length];
+        int rememberedEffort = 0;
+        for (int i = 0; i < choice.length; i++) {
+            long data = table.probe(problem.choiceKey(i));
+            if (data == TranspositionTable.MISS || TranspositionTable.move(data) >= problem.actions[i].length)
+                return 0;
+            if (i > 0 && TranspositionTable.depth(data) != rememberedEffort)
+                return 0; //parts of different searches
+            remembered[i] = TranspositionTable.move(data);
+            rememberedEffort = TranspositionTable.depth(data);
+        }
+        System.arraycopy(remembered, 0, choice, 0, choice.length);
+        return rememberedEffort;
+    }
+
+    private void storeChoice(Problem problem, int[] choice, int effort) {
+        for (int i = 0; i < choice.length; i++)
+            table.store(problem.choiceKey(i), 0, effort, choice[i]);
+    }
+
+    private static boolean isBaseline(int[] choice) {
+        for (int action : choice)
+            if (action != BASELINE)
+                return false;
+        return true;
+    }
+
+    /**
+     * Follows the most visited children, summing the visits of all trees that reached the same node.
+     */
+    private static int[] mergeBestPath(Problem problem, List<Node> trees) {
+        int[] choice = new int[problem.sources.length];
+        List<Node> nodes = new ArrayList<>(trees);
+        for (int depth = 0; depth < choice.length && !nodes.isEmpty(); depth++) {
+            long[] visits = new long[problem.actions[depth].length];
+            for (Node node : nodes)
+                for (int a = 0; a < visits.length; a++)
+                    visits[a] += node.childVisits[a];
+            int best = BASELINE;
+            for (int a = 1; a < visits.length; a++)
+                if (visits[a] > visits[best])
+                    best = a;
+            choice[depth] = best;
+            List<Node> next = new ArrayList<>();
+            for (Node node : nodes)
+                if (node.children[best] != null)
+                    next.add(node.children[best]);
+            nodes = next;
+        }
+        return choice;
+    }
+
+    /**
+     * Plays the choice and the baseline on the same random battles.
+     * @return True if the choice scores better on average, false otherwise
+     */
+    private boolean confirm(Problem problem, int[] choice, Deadline deadline) {
+        int[] baseline = new int[choice.length];
+        SearchState scratch = problem.root.copy();
+        double difference = 0;
+        int simulations = 0;
+        while (simulations < CONFIRM_SIMULATIONS && !deadline.isExpired()) {
+            long battleSeed = seed++;
+            difference += problem.play(choice, scratch, new SplittableRandom(battleSeed), combatModel, evaluator, table);
+            difference -= problem.play(baseline, scratch, new SplittableRandom(battleSeed), combatModel, evaluator, table);
+            simulations++;
+        }
+        log.debug("Choice beats plan by %.4f over %d simulations", simulations == 0 ? 0 : difference / simulations,
+                simulations);
+        return simulations > 0 && difference / simulations > MIN_IMPROVEMENT;
+    }
+
+    /**
+     * Stops the worker threads. The search must not be used afterwards.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The Regions to search, their options and the orders of the plan that aren't searched. Read only once
+     * built, so the workers share it.
+     */
+    private static class Problem {
+        final SearchState root;
+        final int[] sources;
+        final int[][][] actions; //per source and option a list of orders {to, armies}
+        final int[][] fixedOrders; //orders {from, to, armies} of Regions that aren't searched
+        final long key; //the root state and plan, the options are made from these
+
+        Problem(SearchState root, List<AttackTransferMove> plan, CombatModel combatModel,
+                double attackWinProbability) {
+            this.root = root;
+            RegionGraph graph = root.getGraph();
+
+            List<Integer> candidates = new ArrayList<>();
+            for (int id = 0; id < root.getIdBound(); id++) {
+                if (!root.isRegion(id) || root.getOwner(id) != SearchState.ME || root.getArmies(id) <= 1)
+                    continue;
+                if (hasOrders(plan, id) || bordersForeign(root, id))
+                    candidates.add(id);
+            }
+            candidates.sort((r1, r2) -> root.getArmies(r2) - root.getArmies(r1));
+            if (candidates.size() > MAX_SOURCES)
+                candidates = candidates.subList(0, MAX_SOURCES);
+
+            this.sources = candidates.stream().mapToInt(Integer::intValue).toArray();
+            this.actions = new int[sources.length][][];
+            for (int i = 0; i < sources.length; i++)
+                actions[i] = buildActions(root, graph, sources[i], plan, combatModel, attackWinProbability);
+
+            List<int[]> fixed = new ArrayList<>();
+            for (AttackTransferMove move : plan)
+                if (!contains(sources, move.getFromRegion().getId()))
+                    fixed.add(new int[]{move.getFromRegion().getId(), move.getToRegion().getId(), move.getArmies()});
+            this.fixedOrders = fixed.toArray(new int[fixed.size()][]);
+
+            long key = root.getHash();
+            for (AttackTransferMove move : plan)
+                key = TranspositionTable.mix(key ^ ((long) move.getFromRegion().getId() << 40 ^
+                        (long) move.getToRegion().getId() << 20 ^ move.getArmies()));
+            this.key = key;
+        }
+
+        /**
+         * @return the table key of the choice of a source
+         */
+        long choiceKey(int sourceIndex) {
+            return TranspositionTable.mix(key + sourceIndex + 1);
+        }
+
+        private static boolean hasOrders(List<AttackTransferMove> plan, int id) {
+            for (AttackTransferMove move : plan)
+                if (move.getFromRegion().getId() == id)
+                    return true;
+            return false;
+        }
+
+        private static boolean bordersForeign(SearchState state, int id) {
+            RegionGraph graph = state.getGraph();
+            for (int k = graph.neighborStart(id); k < graph.neighborEnd(id); k++)
+                if (state.getOwner(graph.neighborAt(k)) != SearchState.ME)
+                    return true;
+            return false;
+        }
+
+        private static boolean contains(int[] ids, int id) {
+            for (int i : ids)
+                if (i == id)
+                    return true;
+            return false;
+        }
+
+        private static int[][] buildActions(SearchState state, RegionGraph graph, int source,
+                                            List<AttackTransferMove> plan, CombatModel combatModel,
+                                            double attackWinProbability) {
+            List<int[]> actions = new ArrayList<>();
+            int available = state.getArmies(source) - 1;
+
+            List<Integer> baseline = new ArrayList<>();
+            for (AttackTransferMove move : plan) {
+                if (move.getFromRegion().getId() == source) {
+                    baseline.add(move.getToRegion().getId());
+                    baseline.add(move.getArmies());
+                }
+            }
+            actions.add(baseline.stream().mapToInt(Integer::intValue).toArray());
+            if (!baseline.isEmpty())
+                actions.add(new int[0]); //hold
+
+            boolean bordersEnemy = false;
+            for (int k = graph.neighborStart(source); k < graph.neighborEnd(source); k++)
+                bordersEnemy |= state.getOwner(graph.neighborAt(k)) == SearchState.ENEMY;
+
+            for (int k = graph.neighborStart(source); k < graph.neighborEnd(source); k++) {
+                int target = graph.neighborAt(k);
+                if (state.getOwner(target) == SearchState.ME) {
+                    if (!bordersEnemy && bordersEnemyPlayer(state, graph, target))
+                        addAction(actions, target, available);
+                    continue;
+                }
+                int defenders = state.getArmies(target);
+                if (combatModel.winProbability(available, defenders) < MIN_WIN_PROBABILITY)
+                    continue;
+                int needed = combatModel.armiesNeeded(defenders, attackWinProbability);
+                if (needed < available)
+                    addAction(actions, target, needed);
+                addAction(actions, target, available);
+            }
+            return actions.toArray(new int[actions.size()][]);
+        }
+
+        private static boolean bordersEnemyPlayer(SearchState state, RegionGraph graph, int id) {
+            for (int k = graph.neighborStart(id); k < graph.neighborEnd(id); k++)
+                if (state.getOwner(graph.neighborAt(k)) == SearchState.ENEMY)
+                    return true;
+            return false;
+        }
+
+        private static void addAction(List<int[]> actions, int target, int armies) {
+            int[] action = {target, armies};
+            for (int[] existing : actions)
+                if (Arrays.equals(existing, action))
+                    return;
+            actions.add(action);
+        }
+
+        /**
+         * Plays the chosen options on the scratch state, scores the result and takes the moves back. The
+         * scratch state has to be equal to the root. Scores are looked up in and added to the table.
+         */
+        double play(int[] choice, SearchState scratch, SplittableRandom random, CombatModel combatModel,
+                    StateEvaluator evaluator, TranspositionTable table) {
+            int depth = scratch.getDepth();
+            for (int i = 0; i < sources.length; i++) {
+                int[] orders = actions[i][choice[i]];
+                for (int o = 0; o < orders.length; o += 2)
+                    scratch.attackTransfer(SearchState.ME, sources[i], orders[o], orders[o + 1], combatModel, random);
+            }
+            for (int[] order : fixedOrders)
+                scratch.attackTransfer(SearchState.ME, order[0], order[1], order[2], combatModel, random);
+            long hash = scratch.getHash();
+            long data = table.probe(hash);
+            double reward;
+            if (data != TranspositionTable.MISS) {
+                reward = TranspositionTable.value(data);
+            } else {
+                reward = (float) evaluator.reward(scratch); //as stored, so hits and misses agree
+                table.store(hash, reward, 0, 0);
+            }
+            scratch.undoTo(depth);
+            return reward;
+        }
+
+        List<AttackTransferMove> toMoves(int[] choice, GameBoard board, String myName) {
+            List<AttackTransferMove> attacks = new ArrayList<>();
+            List<AttackTransferMove> transfers = new ArrayList<>();
+            for (int i = 0; i < sources.length; i++) {
+                int[] orders = actions[i][choice[i]];
+                for (int o = 0; o < orders.length; o += 2) {
+                    AttackTransferMove move = new AttackTransferMove(myName, board.getRegion(sources[i]),
+                            board.getRegion(orders[o]), orders[o + 1]);
+                    (root.getOwner(orders[o]) == SearchState.ME ? transfers : attacks).add(move);
+                }
+            }
+            List<AttackTransferMove> moves = new ArrayList<>(attacks);
+            moves.addAll(transfers);
+            for (int[] order : fixedOrders)
+                moves.add(new AttackTransferMove(myName, board.getRegion(order[0]), board.getRegion(order[1]), order[2]));
+            return moves;
+        }
+    }
+
+    /**
+     * A tree node for the options of the source at its depth.
+     */
+    private static class Node {
+        final Node[] children;
+        final int[] childVisits;
+        final double[] childRewards;
+        int visits;
+
+        Node(int actionCount) {
+            this.children = new Node[actionCount];
+            this.childVisits = new int[actionCount];
+            this.childRewards = new double[actionCount];
+        }
+    }
+
+    /**
+     * Grows one tree. Everything a worker touches apart from the Problem is its own.
+     */
+    private class Worker {
+        private final Problem problem;
+        private final SplittableRandom random;
+        private final SearchState scratch;
+        private final int[] choice;
+        private final Node[] path;
+
+        Worker(Problem problem, long seed) {
+            this.problem = problem;
+            this.random = new SplittableRandom(seed);
+            this.scratch = problem.root.copy();
+            this.choice = new int[problem.sources.length];
+            this.path = new Node[problem.sources.length];
+        }
+
+        Node search(Deadline deadline) {
+            Node root = new Node(problem.actions[0].length);
+            int depthCount = choice.length;
+            while (!deadline.isExpired()) {
+                //selection and expansion of one node
+                Node node = root;
+                int depth = 0;
+                boolean expanded = false;
+                while (depth < depthCount && !expanded) {
+                    path[depth] = node;
+                    int action = select(node);
+                    choice[depth] = action;
+                    depth++;
+                    if (depth < depthCount) {
+                        if (node.children[action] == null) {
+                            node.children[action] = new Node(problem.actions[depth].length);
+                            expanded = true;
+                        }
+                        node = node.children[action];
+                    }
+                }
+                int treeDepth = depth;
+                //rollout of the remaining sources
+                for (; depth < depthCount; depth++) {
+                    int actionCount = problem.actions[depth].length;
+                    choice[depth] = random.nextDouble() < ROLLOUT_BASELINE_PROBABILITY ?
+                            BASELINE : random.nextInt(actionCount);
+                }
+                double reward = problem.play(choice, scratch, random, combatModel, evaluator, table);
+                if (expanded) {
+                    path[treeDepth] = node;
+                    node.visits++;
+                }
+                for (int d = 0; d < treeDepth; d++) {
+                    path[d].visits++;
+                    path[d].childVisits[choice[d]]++;
+                    path[d].childRewards[choice[d]] += reward;
+                }
+            }
+            return root;
+        }
+
+        private int select(Node node) {
+            int best = BASELINE;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logVisits = Math.log(node.visits + 1);
+            for (int a = 0; a < node.childVisits.length; a++) {
+                if (node.childVisits[a] == 0) {
+                    return a;
+                }
+                double value = node.childRewards[a] / node.childVisits[a] +
+                        EXPLORATION * Math.sqrt(logVisits / node.childVisits[a]);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = a;
+                }
+            }
+            return best;
+        }
+    }
+}
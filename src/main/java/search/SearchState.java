@@ -0,0 +1,355 @@
+package search;
+
+import bot.BotParameters;
+import bot.CombatModel;
+import map.GameBoard;
+import map.Region;
+import map.RegionGraph;
+import map.RegionMask;
+import map.SuperRegion;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Compact copy of a board for simulations: owner and armies per Region id in int arrays, plus the number of
+ * Regions each player owns per SuperRegion so incomes are cheap to compute. The adjacency and SuperRegion
+ * layout are shared between all states made from the same board.
+ * <p>
+ * Placements, transfers and attacks are applied in place and journaled, so a search can step forward with
+ * {@link #place}, {@link #attackTransfer} and {@link #attackTransferExpected} and back with {@link #undo()}
+ * without copying the state. Each operation saves the owner and armies of the Regions it changes, two at
+ * most, and allocates nothing once the journal has grown to the depth of the search.
+ * <p>
+ * Every state keeps a Zobrist hash of its owners and armies, updated with each change, so equal positions
+ * have equal hashes whichever moves led to them, see {@link TranspositionTable}. The keys are derived from
+ * the Region id and value by a mixing function instead of a random table, so they are the same for every
+ * state, thread and round.
+ */
+public class SearchState {
+    public static final int NEUTRAL = 0;
+    public static final int ME = 1;
+    public static final int ENEMY = 2;
+    public static final int BASE_INCOME = 5;
+
+    final RegionGraph graph;
+    final int[] superRegionOf;
+    final int[] superRegionReward;
+    final int[] superRegionSize;
+    final int[] owner;
+    final int[] armies;
+    final int[] ownedInSuperRegion; //Regions owned per player and SuperRegion at player * superRegionBound + id
+
+    private int[] journal = new int[3 * 64]; //Region id, previous owner and previous armies per saved change
+    private int journalSize;
+    private int[] operations = new int[32]; //the journal size before each applied operation
+    private int depth;
+    private long hash;
+
+    private SearchState(RegionGraph graph, int idBound, int superRegionBound) {
+        this.graph = graph;
+        this.superRegionOf = new int[idBound];
+        this.superRegionReward = new int[superRegionBound];
+        this.superRegionSize = new int[superRegionBound];
+        this.owner = new int[idBound];
+        this.armies = new int[idBound];
+        this.ownedInSuperRegion = new int[3 * superRegionBound];
+    }
+
+    private SearchState(SearchState other) {
+        this.graph = other.graph;
+        this.superRegionOf = other.superRegionOf;
+        this.superRegionReward = other.superRegionReward;
+        this.superRegionSize = other.superRegionSize;
+        this.owner = other.owner.clone();
+        this.armies = other.armies.clone();
+        this.ownedInSuperRegion = other.ownedInSuperRegion.clone();
+        this.hash = other.hash;
+    }
+
+    /**
+     * Copies the owners and armies of a board. Regions in the fog count as neutral with the armies the
+     * rankers assume for them.
+     * @param board the board to copy
+     * @param myName the name of the player the search plays for
+     * @param enemyName the name of the opponent
+     * @param parameters the armies to assume in the fog
+     * @return a new SearchState
+     */
+    public static SearchState fromBoard(GameBoard board, String myName, String enemyName, BotParameters parameters) {
+        RegionGraph graph = board.getGraph();
+        int idBound = Math.max(board.getRegionIdBound(), graph.getIdBound());
+        SearchState state = new SearchState(graph, idBound, board.getSuperRegionIdBound());
+        Arrays.fill(state.superRegionOf, -1);
+
+        for (SuperRegion superRegion : board.getSuperRegions()) {
+            state.superRegionReward[superRegion.getId()] = superRegion.getArmiesReward();
+            state.superRegionSize[superRegion.getId()] = superRegion.getSubRegions().size();
+        }
+        RegionMask mine = board.getOwnerMask(myName);
+        RegionMask enemy = board.getOwnerMask(enemyName);
+        RegionMask visible = board.getVisibleMask();
+        RegionMask wastelands = board.getWastelandMask();
+        for (Region region : board.getRegions()) {
+            int id = region.getId();
+            state.superRegionOf[id] = region.getSuperRegion().getId();
+            int player = mine.get(id) ? ME : enemy.get(id) ? ENEMY : NEUTRAL;
+            int armies = region.getArmies();
+            if (!visible.get(id) && armies == 0)
+                armies = parameters.getFogArmies(wastelands.get(id));
+            state.owner[id] = player;
+            state.armies[id] = armies;
+            state.ownedInSuperRegion[player * state.superRegionReward.length + state.superRegionOf[id]]++;
+        }
+        for (int id = 0; id < idBound; id++)
+            state.hash ^= ownerKey(id, state.owner[id]) ^ armiesKey(id, state.armies[id]);
+        return state;
+    }
+
+    /**
+     * @return an independent copy sharing only the static map layout
+     */
+    public SearchState copy() {
+        return new SearchState(this);
+    }
+
+    /**
+     * Overwrites this state with another one made from the same board, without allocating.
+     */
+    public void copyFrom(SearchState other) {
+        System.arraycopy(other.owner, 0, owner, 0, owner.length);
+        System.arraycopy(other.armies, 0, armies, 0, armies.length);
+        System.arraycopy(other.ownedInSuperRegion, 0, ownedInSuperRegion, 0, ownedInSuperRegion.length);
+        hash = other.hash;
+        journalSize = 0;
+        depth = 0;
+    }
+
+    public RegionGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return one more than the largest Region id
+     */
+    public int getIdBound() {
+        return owner.length;
+    }
+
+    /**
+     * @return True if the id belongs to a Region of the board, false otherwise
+     */
+    public boolean isRegion(int id) {
+        return id >= 0 && id < superRegionOf.length && superRegionOf[id] >= 0;
+    }
+
+    public int getOwner(int id) {
+        return owner[id];
+    }
+
+    public int getArmies(int id) {
+        return armies[id];
+    }
+
+    /**
+     * Sets the armies of a Region without journaling, for setting up a state before searching it.
+     */
+    public void setArmies(int id, int armies) {
+        putArmies(id, armies);
+    }
+
+    private void putArmies(int id, int armies) {
+        hash ^= armiesKey(id, this.armies[id]) ^ armiesKey(id, armies);
+        this.armies[id] = armies;
+    }
+
+    /**
+     * Sets the owner of a Region without journaling, for setting up a state before searching it.
+     */
+    public void setOwner(int id, int player) {
+        int superRegionBound = superRegionReward.length;
+        ownedInSuperRegion[owner[id] * superRegionBound + superRegionOf[id]]--;
+        hash ^= ownerKey(id, owner[id]) ^ ownerKey(id, player);
+        owner[id] = player;
+        ownedInSuperRegion[player * superRegionBound + superRegionOf[id]]++;
+    }
+
+    /**
+     * @return True if the player owns every Region of the SuperRegion, false otherwise
+     */
+    public boolean ownsSuperRegion(int player, int superRegionId) {
+        return superRegionSize[superRegionId] > 0 &&
+                ownedInSuperRegion[player * superRegionReward.length + superRegionId] == superRegionSize[superRegionId];
+    }
+
+    /**
+     * @return the number of Regions of the SuperRegion the player owns
+     */
+    public int getOwnedInSuperRegion(int player, int superRegionId) {
+        return ownedInSuperRegion[player * superRegionReward.length + superRegionId];
+    }
+
+    public int getSuperRegionOf(int id) {
+        return superRegionOf[id];
+    }
+
+    public int getSuperRegionReward(int superRegionId) {
+        return superRegionReward[superRegionId];
+    }
+
+    public int getSuperRegionSize(int superRegionId) {
+        return superRegionSize[superRegionId];
+    }
+
+    public int getSuperRegionIdBound() {
+        return superRegionReward.length;
+    }
+
+    /**
+     * Places armies on a Region of the player. Placements on Regions the player doesn't own are ignored but
+     * still count as an operation for {@link #undo()}.
+     */
+    public void place(int player, int id, int armies) {
+        begin();
+        if (owner[id] != player || armies <= 0)
+            return;
+        save(id);
+        putArmies(id, this.armies[id] + armies);
+    }
+
+    /**
+     * Moves armies from a Region of the player to a neighbor, fighting the battle by sampling the kills of both
+     * sides. At least one army stays behind, moves from Regions the player doesn't own are ignored.
+     * @param requested the armies of the move, fewer are sent if the Region doesn't have them
+     * @param random the source of the two uniform numbers of a battle, untouched by transfers
+     * @return True if the Region was taken, false otherwise
+     */
+    public boolean attackTransfer(int player, int from, int to, int requested, CombatModel combatModel,
+                                  SplittableRandom random) {
+        int armies = beginMove(player, from, to, requested);
+        if (armies <= 0 || owner[to] == player)
+            return false;
+        int defenders = this.armies[to];
+        int defendersKilled = Math.min(combatModel.sampleAttackerKills(armies, random.nextDouble()), defenders);
+        int attackersKilled = Math.min(combatModel.sampleDefenderKills(defenders, random.nextDouble()), armies);
+        return resolve(player, from, to, armies, defendersKilled, attackersKilled);
+    }
+
+    /**
+     * Moves armies like {@link #attackTransfer(int, int, int, int, CombatModel, SplittableRandom)}, but every
+     * army kills its expected share of the other side, rounded to the nearest army.
+     * @return True if the Region was taken, false otherwise
+     */
+    public boolean attackTransferExpected(int player, int from, int to, int requested) {
+        int armies = beginMove(player, from, to, requested);
+        if (armies <= 0 || owner[to] == player)
+            return false;
+        int defenders = this.armies[to];
+        int defendersKilled = Math.min((int) Math.round(armies * CombatModel.ATTACKER_KILL_PROBABILITY), defenders);
+        int attackersKilled = Math.min((int) Math.round(defenders * CombatModel.DEFENDER_KILL_PROBABILITY), armies);
+        return resolve(player, from, to, armies, defendersKilled, attackersKilled);
+    }
+
+    /**
+     * Starts a move and takes the sent armies off the source. Transfers are done right away.
+     * @return the armies sent, 0 if the move is ignored
+     */
+    private int beginMove(int player, int from, int to, int requested) {
+        begin();
+        if (owner[from] != player)
+            return 0;
+        int armies = Math.min(requested, this.armies[from] - 1);
+        if (armies <= 0)
+            return 0;
+        save(from);
+        putArmies(from, this.armies[from] - armies);
+        save(to);
+        if (owner[to] == player)
+            putArmies(to, this.armies[to] + armies);
+        return armies;
+    }
+
+    private boolean resolve(int player, int from, int to, int armies, int defendersKilled, int attackersKilled) {
+        if (defendersKilled == this.armies[to] && attackersKilled < armies) {
+            setOwner(to, player);
+            putArmies(to, armies - attackersKilled);
+            return true;
+        }
+        putArmies(to, Math.max(this.armies[to] - defendersKilled, 1));
+        putArmies(from, this.armies[from] + armies - attackersKilled);
+        return false;
+    }
+
+    private void begin() {
+        if (depth == operations.length)
+            operations = Arrays.copyOf(operations, depth * 2);
+        operations[depth++] = journalSize;
+    }
+
+    private void save(int id) {
+        if (journalSize + 3 > journal.length)
+            journal = Arrays.copyOf(journal, journal.length * 2);
+        journal[journalSize++] = id;
+        journal[journalSize++] = owner[id];
+        journal[journalSize++] = armies[id];
+    }
+
+    /**
+     * Takes back the last operation.
+     * @throws IllegalStateException if there is nothing to take back
+     */
+    public void undo() {
+        if (depth == 0)
+            throw new IllegalStateException("Nothing to undo");
+        int start = operations[--depth];
+        while (journalSize > start) {
+            int previousArmies = journal[--journalSize];
+            int previousOwner = journal[--journalSize];
+            int id = journal[--journalSize];
+            if (owner[id] != previousOwner)
+                setOwner(id, previousOwner);
+            putArmies(id, previousArmies);
+        }
+    }
+
+    /**
+     * @return the number of operations that can be taken back
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Takes back operations until only the given number is left, e.g. the depth before a rollout.
+     */
+    public void undoTo(int depth) {
+        while (this.depth > depth)
+            undo();
+    }
+
+    /**
+     * @return the Zobrist hash of the owners and armies of all Regions
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    static long ownerKey(int id, int player) {
+        return TranspositionTable.mix(((long) id << 2 | player) + 0x5851f42d4c957f2dL);
+    }
+
+    static long armiesKey(int id, int armies) {
+        return TranspositionTable.mix(((long) id << 32 | (armies & 0xffffffffL)) ^ 0x2545f4914f6cdd1dL);
+    }
+
+    /**
+     * @return the armies the player would get at the start of the next round
+     */
+    public int income(int player) {
+        int income = BASE_INCOME;
+        for (int superRegionId = 0; superRegionId < superRegionReward.length; superRegionId++)
+            if (ownsSuperRegion(player, superRegionId))
+                income += superRegionReward[superRegionId];
+        return income;
+    }
+}
@@ -0,0 +1,63 @@
+package search;
+
+import map.RegionGraph;
+
+/**
+ * Static evaluation of a SearchState from my point of view. It weighs the income difference, the armies and
+ * Regions on the board, progress towards SuperRegions and a penalty for border Regions the enemy could take
+ * next round.
+ */
+public class StateEvaluator {
+    private static final double INCOME_WEIGHT = 3;
+    private static final double PROGRESS_WEIGHT = 1;
+    private static final double REGION_WEIGHT = 1;
+    private static final double ARMY_WEIGHT = .3;
+    private static final double THREAT_WEIGHT = .3;
+    private static final double REWARD_SCALE = 10;
+
+    /**
+     * @return a score that is higher the better the state is for me, differences are what matters
+     */
+    public double evaluate(SearchState state) {
+        int myIncome = state.income(SearchState.ME);
+        int enemyIncome = state.income(SearchState.ENEMY);
+        double score = (myIncome - enemyIncome) * INCOME_WEIGHT;
+
+        for (int superRegionId = 0; superRegionId < state.getSuperRegionIdBound(); superRegionId++) {
+            int size = state.getSuperRegionSize(superRegionId);
+            if (size == 0 || state.getOwnedInSuperRegion(SearchState.ENEMY, superRegionId) > 0)
+                continue;
+            double owned = (double) state.getOwnedInSuperRegion(SearchState.ME, superRegionId) / size;
+            score += state.getSuperRegionReward(superRegionId) * owned * owned * PROGRESS_WEIGHT;
+        }
+
+        RegionGraph graph = state.getGraph();
+        for (int id = 0; id < state.getIdBound(); id++) {
+            int owner = state.getOwner(id);
+            if (owner == SearchState.ME) {
+                score += REGION_WEIGHT + state.getArmies(id) * ARMY_WEIGHT;
+                int strongestEnemy = 0;
+                for (int k = graph.neighborStart(id); k < graph.neighborEnd(id); k++) {
+                    int neighbor = graph.neighborAt(k);
+                    if (state.getOwner(neighbor) == SearchState.ENEMY)
+                        strongestEnemy = Math.max(strongestEnemy, state.getArmies(neighbor));
+                }
+                if (strongestEnemy > 0) {
+                    double threat = (strongestEnemy - 1 + enemyIncome) * 0.6 - state.getArmies(id);
+                    if (threat > 0)
+                        score -= Math.min(threat, state.getArmies(id) + 1) * THREAT_WEIGHT;
+                }
+            } else if (owner == SearchState.ENEMY) {
+                score -= REGION_WEIGHT + state.getArmies(id) * ARMY_WEIGHT;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * @return the evaluation squashed into (0, 1) for use as a search reward
+     */
+    public double reward(SearchState state) {
+        return 1 / (1 + Math.exp(-evaluate(state) / REWARD_SCALE));
+    }
+}
@@ -0,0 +1,95 @@
+package search;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size hash table from position hashes to a value, a depth and a move, shared by all search threads
+ * without locks.
+ * <p>
+ * Each slot holds two longs: the data and the hash XOR the data. A reader accepts a slot only if the two give
+ * back the hash it looks for, so a slot torn by two threads writing at the same time reads as a miss instead
+ * of as wrong data. A slot is replaced by an entry with at least its depth, or by any entry once it is from an
+ * older generation, so the results of long searches survive short ones and old rounds make room for new ones.
+ * <p>
+ * Data is packed as the float bits of the value (32 bits), the depth (16 bits), the move (8 bits) and the
+ * generation (8 bits).
+ */
+public class TranspositionTable {
+    public static final long MISS = 0;
+    public static final int MAX_DEPTH = 0xffff;
+    public static final int MAX_MOVE = 0xff;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private volatile int generation = 1;
+
+    /**
+     * @param sizeLog2 the table holds 2^sizeLog2 entries of 16 bytes
+     */
+    public TranspositionTable(int sizeLog2) {
+        this.slots = new AtomicLongArray(2 << sizeLog2);
+        this.mask = (1 << sizeLog2) - 1;
+    }
+
+    /**
+     * Starts a new generation, e.g. a new search. Entries of older generations can still be found but are
+     * replaced first.
+     */
+    public void newGeneration() {
+        generation = generation % 0xff + 1; //never 0, so stored data is never MISS
+    }
+
+    /**
+     * @return the data stored for the hash, or MISS
+     */
+    public long probe(long hash) {
+        int index = index(hash);
+        long data = slots.get(index + 1);
+        return (slots.get(index) ^ data) == hash ? data : MISS;
+    }
+
+    /**
+     * Stores an entry unless the slot holds a deeper entry of the current generation.
+     * @param depth the depth or effort behind the value, capped at MAX_DEPTH
+     * @param move a move index between 0 and MAX_MOVE
+     */
+    public void store(long hash, double value, int depth, int move) {
+        int index = index(hash);
+        long existing = slots.get(index + 1);
+        if (existing != MISS && generation(existing) == generation && depth(existing) > depth)
+            return;
+        long data = (long) Float.floatToRawIntBits((float) value) << 32 |
+                (long) Math.min(Math.max(depth, 0), MAX_DEPTH) << 16 | (move & MAX_MOVE) << 8 | generation;
+        slots.lazySet(index, hash ^ data);
+        slots.lazySet(index + 1, data);
+    }
+
+    private int index(long hash) {
+        return ((int) (hash ^ hash >>> 32) & mask) << 1;
+    }
+
+    public static double value(long data) {
+        return Float.intBitsToFloat((int) (data >>> 32));
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 16) & MAX_DEPTH;
+    }
+
+    public static int move(long data) {
+        return (int) (data >>> 8) & MAX_MOVE;
+    }
+
+    static int generation(long data) {
+        return (int) data & 0xff;
+    }
+
+    /**
+     * The SplitMix64 finalizer, spreads the bits of a key over the whole hash.
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,27 @@
+package trace;
+
+/**
+ * Layout of trace files. A trace starts with {@link #MAGIC}, {@link #VERSION} and the start time in epoch
+ * milliseconds as a long. Records follow until the end of the file, each one is
+ * <pre>
+ * type     1 byte, one of the record types below
+ * round    varint, the round number the bot was in
+ * nanos    varint, for commands the time since the start, for answers the time the bot took to answer
+ * length   varint, the number of bytes of the line
+ * line     the ASCII line without its line break
+ * </pre>
+ * Varints are unsigned LEB128: seven bits per byte, lowest bits first, the high bit set on all but the last
+ * byte.
+ */
+public final class TraceFormat {
+    public static final int MAGIC = 0x574c5452; //"WLTR"
+    public static final int VERSION = 1;
+
+    public static final int COMMAND = 1;
+    public static final int PICK_STARTING_REGION = 2;
+    public static final int PLACE_ARMIES = 3;
+    public static final int ATTACK_TRANSFER = 4;
+
+    private TraceFormat() {
+    }
+}
@@ -0,0 +1,137 @@
+package trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads a trace file record by record, see {@link TraceFormat}.
+ */
+public class TraceReader implements Closeable {
+    private final InputStream in;
+    private final long startMillis;
+    private int type;
+    private int round;
+    private long nanos;
+    private byte[] line = new byte[1 << 12];
+    private int length;
+
+    public TraceReader(Path path) throws IOException {
+        this(Files.newInputStream(path));
+    }
+
+    public TraceReader(InputStream in) throws IOException {
+        this.in = new BufferedInputStream(in, 1 << 16);
+        int magic = (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        if (magic != TraceFormat.MAGIC)
+            throw new IOException("Not a trace file");
+        int version = readByte();
+        if (version != TraceFormat.VERSION)
+            throw new IOException("Unsupported trace version " + version);
+        long millis = 0;
+        for (int i = 0; i < 8; i++)
+            millis = (millis << 8) | readByte();
+        this.startMillis = millis;
+    }
+
+    /**
+     * Moves to the next record.
+     * @return True if there is one, false at the end of the trace
+     */
+    public boolean next() throws IOException {
+        int next = in.read();
+        if (next < 0)
+            return false;
+        type = next;
+        round = (int) readVarint();
+        nanos = readVarint();
+        length = (int) readVarint();
+        if (line.length < length)
+            line = Arrays.copyOf(line, Math.max(length, line.length * 2));
+        int offset = 0;
+        while (offset < length) {
+            int read = in.read(line, offset, length - offset);
+            if (read < 0)
+                throw new EOFException("Trace ends inside a record");
+            offset += read;
+        }
+        return true;
+    }
+
+    /**
+     * @return the epoch milliseconds at which recording started
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return the record type, see {@link TraceFormat}
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return True if the record is a command sent to the bot, false if it is an answer
+     */
+    public boolean isCommand() {
+        return type == TraceFormat.COMMAND;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return for commands the nanoseconds since the start of the recording, for answers the nanoseconds the
+     * bot took to answer
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return the buffer holding the line of the record, only valid until the next record is read
+     */
+    public byte[] getLineBuffer() {
+        return line;
+    }
+
+    public int getLineLength() {
+        return length;
+    }
+
+    public String getLine() {
+        return new String(line, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0)
+            throw new EOFException("Trace ends inside the header");
+        return b;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,105 @@
+package trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends the commands a bot receives and the answers it gives to a trace file, see {@link TraceFormat}.
+ * Records are collected in a direct buffer that is written to the file channel when it is full and when the
+ * recorder is flushed or closed. The parser flushes after every answer, once the answer has been written, so
+ * recording costs a few copies into memory and a file write the engine doesn't wait for.
+ * <p>
+ * A recorder is used by the thread running the parser only.
+ */
+public class TraceRecorder implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final long startNanos = System.nanoTime();
+
+    public TraceRecorder(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(TraceFormat.MAGIC);
+        buffer.put((byte) TraceFormat.VERSION);
+        buffer.putLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Records a command line as it was received.
+     */
+    public void recordCommand(int round, byte[] line, int length) {
+        record(TraceFormat.COMMAND, round, System.nanoTime() - startNanos, line, length);
+    }
+
+    /**
+     * Records the answer of the bot.
+     * @param type the record type of the answered request, see {@link TraceFormat}
+     * @param nanos the time the bot took to answer
+     */
+    public void recordAnswer(int type, int round, long nanos, byte[] line, int length) {
+        record(type, round, nanos, line, length);
+    }
+
+    private void record(int type, int round, long nanos, byte[] line, int length) {
+        try {
+            ensureSpace(1 + 5 + 10 + 5);
+            buffer.put((byte) type);
+            putVarint(round);
+            putVarint(nanos);
+            putVarint(length);
+            int offset = 0;
+            while (offset < length) {
+                if (!buffer.hasRemaining())
+                    writeBuffer();
+                int chunk = Math.min(length - offset, buffer.remaining());
+                buffer.put(line, offset, chunk);
+                offset += chunk;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            writeBuffer();
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     */
+    public void flush() throws IOException {
+        writeBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package trace;
+
+import bot.Bot;
+import bot.BotStarter;
+import bot.StreamingBotParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Streams the commands of a trace back through a Bot and compares its answers with the recorded ones, e.g.
+ * to check that a change doesn't change decisions, or to profile a bot on a real game.
+ * <p>
+ * Usage: TraceReplay [trace] [replayed trace]. The replay is recorded as a trace of its own.
+ */
+public class TraceReplay {
+
+    /**
+     * Feeds the commands of a trace to a Bot and records the replay. Answers are written to a discarded stream,
+     * they end up in the replayed trace.
+     */
+    public static void replay(Path trace, Bot bot, Path replayed) throws IOException {
+        try (TraceReader reader = new TraceReader(trace);
+             TraceRecorder recorder = new TraceRecorder(replayed)) {
+            StreamingBotParser parser = new StreamingBotParser(bot, new CommandStream(reader), new NullStream());
+            parser.setRecorder(recorder);
+            parser.run();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Compares the answers of two traces in order.
+     */
+    public static Comparison compare(Path recorded, Path replayed) throws IOException {
+        Comparison comparison = new Comparison();
+        try (TraceReader expected = new TraceReader(recorded);
+             TraceReader actual = new TraceReader(replayed)) {
+            while (nextAnswer(expected)) {
+                if (!nextAnswer(actual)) {
+                    comparison.missing++;
+                    continue;
+                }
+                comparison.answers++;
+                comparison.recordedNanos += expected.getNanos();
+                comparison.replayedNanos += actual.getNanos();
+                if (expected.getType() != actual.getType() || !expected.getLine().equals(actual.getLine())) {
+                    if (comparison.differences == 0)
+                        comparison.firstDifference = String.format("round %d: \"%s\" was \"%s\"",
+                                expected.getRound(), actual.getLine(), expected.getLine());
+                    comparison.differences++;
+                }
+            }
+        }
+        return comparison;
+    }
+
+    private static boolean nextAnswer(TraceReader reader) throws IOException {
+        while (reader.next()) {
+            if (!reader.isCommand())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * The result of comparing the answers of two traces.
+     */
+    public static class Comparison {
+        private int answers;
+        private int differences;
+        private int missing;
+        private long recordedNanos;
+        private long replayedNanos;
+        private String firstDifference;
+
+        public int getAnswers() {
+            return answers;
+        }
+
+        public int getDifferences() {
+            return differences;
+        }
+
+        /**
+         * @return the number of recorded answers the replay didn't give
+         */
+        public int getMissing() {
+            return missing;
+        }
+
+        public long getRecordedNanos() {
+            return recordedNanos;
+        }
+
+        public long getReplayedNanos() {
+            return replayedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d answers, %d different, %d missing, %.1f ms recorded, %.1f ms replayed%s",
+                    answers, differences, missing, recordedNanos / 1e6, replayedNanos / 1e6,
+                    firstDifference == null ? "" : ", first difference in " + firstDifference);
+        }
+    }
+
+    /**
+     * The command lines of a trace as the protocol stream the engine sent, read record by record.
+     */
+    private static class CommandStream extends InputStream {
+        private final TraceReader reader;
+        private byte[] line = new byte[0];
+        private int position;
+        private int length;
+
+        CommandStream(TraceReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill())
+                return -1;
+            return line[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!fill())
+                return -1;
+            int count = Math.min(len, length - position);
+            System.arraycopy(line, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            while (position == length) {
+                if (!reader.next())
+                    return false;
+                if (!reader.isCommand())
+                    continue;
+                length = reader.getLineLength() + 1;
+                if (line.length < length)
+                    line = new byte[Math.max(length, line.length * 2)];
+                System.arraycopy(reader.getLineBuffer(), 0, line, 0, length - 1);
+                line[length - 1] = '\n';
+                position = 0;
+            }
+            return true;
+        }
+    }
+
+    private static class NullStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path trace = Paths.get(args[0]);
+        Path replayed = args.length > 1 ? Paths.get(args[1]) : Files.createTempFile("replay", ".trace");
+        replay(trace, new BotStarter(), replayed);
+        System.out.println(compare(trace, replayed));
+    }
+}
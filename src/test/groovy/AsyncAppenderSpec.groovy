@@ -0,0 +1,54 @@
+import log.AsyncAppender
+import log.LogLevel
+import spock.lang.Specification
+
+class AsyncAppenderSpec extends Specification {
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream()
+
+    def "lines are written in order by the background thread"() {
+        given:
+        AsyncAppender appender = new AsyncAppender(out, 16, AsyncAppender.OverflowPolicy.BLOCK)
+
+        when:
+        100.times { appender.append(0L, "main", LogLevel.INFO, "Spec", "line %d", [it] as Object[], null) }
+        appender.flush()
+
+        then:
+        out.toString().readLines().collect { it.substring(it.lastIndexOf(' ') + 1) as int } == (0..99).toList()
+
+        cleanup:
+        appender.close()
+    }
+
+    def "mutable arguments are logged as they were when appended"() {
+        given:
+        AsyncAppender appender = new AsyncAppender(out, 16, AsyncAppender.OverflowPolicy.BLOCK)
+        List<Integer> list = [1]
+
+        when:
+        appender.append(0L, "main", LogLevel.INFO, "Spec", "list %s", [list] as Object[], null)
+        list.add(2)
+        appender.flush()
+
+        then:
+        out.toString().trim().endsWith("list [1]")
+
+        cleanup:
+        appender.close()
+    }
+
+    def "lines appended after closing are written directly"() {
+        given:
+        AsyncAppender appender = new AsyncAppender(out, 16, AsyncAppender.OverflowPolicy.DROP)
+        appender.close()
+
+        when:
+        appender.append(0L, "main", LogLevel.WARN, "Spec", "late", [] as Object[], null)
+        appender.flush()
+
+        then:
+        out.toString().trim().endsWith("late")
+        appender.dropped == 0
+    }
+}
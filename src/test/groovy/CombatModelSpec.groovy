@@ -0,0 +1,39 @@
+import bot.CombatModel
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CombatModelSpec extends Specification {
+
+    CombatModel model = new CombatModel(50, 0.6)
+
+    @Unroll
+    def "#attackers attackers take #defenders defenders with probability #probability"() {
+        expect:
+        Math.abs(model.winProbability(attackers, defenders) - probability) < 1e-9
+
+        where:
+        attackers | defenders | probability
+        3         | 2         | 0.648
+        1         | 1         | 0.6 * 0.3
+        5         | 0         | 1
+        2         | 3         | 0
+    }
+
+    def "needed armies are the smallest count reaching the win probability"() {
+        expect:
+        (0..50).every { defenders ->
+            int needed = model.armiesNeeded(defenders, 0.6)
+            model.winProbability(needed, defenders) >= 0.6 &&
+                    (needed == 1 || model.winProbability(needed - 1, defenders) < 0.6)
+        }
+        model.armiesNeeded(4, 0.6) == 7
+        model.armiesNeeded(4, 0.8) > model.armiesNeeded(4, 0.6)
+    }
+
+    def "large battles use the normal approximation"() {
+        expect:
+        Math.abs(model.winProbability(120, 60) - 1) < 0.01
+        model.winProbability(80, 60) < 0.01
+        model.armiesNeeded(100, 0.6) > 160
+    }
+}
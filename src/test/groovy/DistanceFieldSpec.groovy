@@ -0,0 +1,42 @@
+import map.DistanceField
+import map.GameBoard
+import map.Region
+import map.SuperRegion
+import spock.lang.Specification
+
+class DistanceFieldSpec extends Specification {
+
+    GameBoard board = new GameBoard()
+
+    def setup() {
+        board.add(new SuperRegion(1, 0))
+        (1..6).each { board.add(new Region(it, board.getSuperRegion(1), "player1", 1)) }
+        (1..5).each { board.getRegion(it).addNeighbor(board.getRegion(it + 1)) }
+        board.getRegion(6).setPlayerName("player2")
+    }
+
+    def "distances are hop counts from the closest source over passable regions"() {
+        given:
+        DistanceField field = new DistanceField(board,
+                { Region r -> board.anyNeighbor(r, { Region n -> n.ownedByPlayer("player2") }) },
+                { Region r -> r.ownedByPlayer("player1") })
+
+        expect:
+        (1..6).collect { field.getDistance(it) } == [4, 3, 2, 1, 0, DistanceField.UNREACHABLE]
+    }
+
+    def "distances are recomputed after an ownership change"() {
+        given:
+        DistanceField field = new DistanceField(board,
+                { Region r -> board.anyNeighbor(r, { Region n -> n.ownedByPlayer("player2") }) },
+                { Region r -> r.ownedByPlayer("player1") })
+        field.getDistance(1)
+
+        when:
+        board.getRegion(3).setPlayerName("player2")
+
+        then:
+        (1..6).collect { field.getDistance(it) } ==
+                [1, 0, DistanceField.UNREACHABLE, 0, 0, DistanceField.UNREACHABLE]
+    }
+}
@@ -0,0 +1,55 @@
+import bot.BotState
+import bot.EnemyBelief
+import spock.lang.Specification
+
+class EnemyBeliefSpec extends Specification {
+
+    BotState state = new BotState()
+
+    def setup() {
+        state.updateSettings("your_bot", "settings your_bot player1".split(" "))
+        state.updateSettings("opponent_bot", "settings opponent_bot player2".split(" "))
+        state.setupMap("setup_map super_regions 1 3 2 2".split(" "))
+        state.setupMap("setup_map regions 1 1 2 1 3 2 4 2".split(" "))
+        state.setupMap("setup_map neighbors 1 2 2 3 3 4".split(" "))
+    }
+
+    def "regions keep the enemy armies last seen on them in the fog"() {
+        when:
+        state.updateMap("update_map 1 player1 5 2 player2 4".split(" "))
+        state.updateMap("update_map 1 player1 5 2 neutral 2".split(" "))
+        state.updateMap("update_map 1 player1 5".split(" "))
+        EnemyBelief belief = state.enemyBelief
+
+        then:
+        !belief.isEnemy(region(2))
+        belief.getArmies(region(2)) == EnemyBelief.UNKNOWN
+
+        when:
+        state.updateMap("update_map 1 player1 5 2 player2 7".split(" "))
+        state.updateMap("update_map 1 player1 5".split(" "))
+
+        then:
+        belief.isEnemy(region(2))
+        belief.getArmies(region(2)) == 7
+    }
+
+    def "moves out of the fog show enemy regions and placements bound the income"() {
+        given:
+        state.updateMap("update_map 2 player1 5".split(" "))
+
+        when:
+        state.readOpponentMoves("opponent_moves player2 place_armies 3 4 player2 attack/transfer 3 2 6 player2 attack/transfer 4 3 2".split(" "))
+        EnemyBelief belief = state.enemyBelief
+
+        then:
+        belief.isEnemy(region(3))
+        belief.isEnemy(region(4))
+        belief.getArmies(region(3)) == 1
+        belief.income == 5 + 2
+    }
+
+    def region(int id) {
+        state.visibleGameBoard.getRegion(id)
+    }
+}
@@ -0,0 +1,206 @@
+import map.BoardSnapshot
+import map.Frontier
+import map.GameBoard
+import map.Region
+import map.SuperRegion
+import spock.lang.Specification
+
+class GameBoardSpec extends Specification {
+
+    GameBoard board = new GameBoard()
+
+    def setup() {
+        board.add(new SuperRegion(1, 3))
+        board.add(new SuperRegion(2, 5))
+        (1..40).each { board.add(new Region(it, board.getSuperRegion(it % 2 + 1))) }
+        (1..39).each { board.getRegion(it).addNeighbor(board.getRegion(it + 1)) }
+    }
+
+    def "regions and super regions are found by id"() {
+        expect:
+        board.getRegion(17).id == 17
+        board.getSuperRegion(2).armiesReward == 5
+        board.getRegion(41) == null
+        board.getRegion(-1) == null
+        board.getSuperRegion(3) == null
+    }
+
+    def "duplicate ids are rejected"() {
+        when:
+        board.add(new Region(5, board.getSuperRegion(1)))
+
+        then:
+        board.regions.size() == 40
+        board.getRegion(5).superRegion.id == 2
+    }
+
+    def "removing a region through the region list drops it from the index"() {
+        when:
+        board.regions.remove(board.getRegion(10))
+        board.regions.removeIf { it.id > 30 }
+
+        then:
+        board.getRegion(10) == null
+        board.getRegion(31) == null
+        board.getRegion(30) != null
+        board.regions.size() == 29
+    }
+
+    def "a map copy has equal but independent regions"() {
+        given:
+        board.getRegion(3).setArmies(7)
+        board.getRegion(3).setPlayerName("player1")
+
+        when:
+        GameBoard copy = board.mapCopy
+        copy.getRegion(3).setArmies(1)
+
+        then:
+        copy.regions.size() == 40
+        copy.getRegion(3).playerName == "player1"
+        copy.getRegion(3).neighbors*.id == [2, 4]
+        copy.getRegion(3).neighbors.every { it.is(copy.getRegion(it.id)) }
+        board.getRegion(3).armies == 7
+    }
+
+    def "a map of some regions copies them and leaves the original map alone"() {
+        given:
+        board.getRegion(3).setPlayerName("player1")
+
+        when:
+        GameBoard part = new GameBoard(board.regions.findAll { it.id <= 4 }, board.superRegions)
+        part.getRegion(3).setArmies(9)
+
+        then:
+        part.regions*.id == [1, 2, 3, 4]
+        part.getRegion(3).playerName == "player1"
+        part.getRegion(4).neighbors*.id == [3]
+        !part.getRegion(3).is(board.getRegion(3))
+        board.getRegion(3).board.is(board)
+        board.getRegion(3).armies == 0
+        board.getRegion(4).neighbors*.id == [3, 5]
+    }
+
+    def "regions missing from a visibility update are reset to unknown"() {
+        given:
+        board.beginVisibilityUpdate()
+        board.updateVisibleRegion(board.getRegion(1), "player1", 4)
+        board.updateVisibleRegion(board.getRegion(2), "neutral", 2)
+        board.endVisibilityUpdate()
+
+        when:
+        board.beginVisibilityUpdate()
+        board.updateVisibleRegion(board.getRegion(1), "player1", 6)
+        board.endVisibilityUpdate()
+
+        then:
+        board.visibleRegions*.id == [1]
+        board.getRegion(1).visible
+        board.getRegion(1).armies == 6
+        !board.getRegion(2).visible
+        board.getRegion(2).playerName == "unknown"
+        board.getRegion(2).armies == 0
+    }
+
+    def "super regions know the player that owns all their regions"() {
+        given:
+        SuperRegion superRegion = board.getSuperRegion(1)
+
+        when:
+        superRegion.subRegions.each { it.playerName = "player1" }
+        board.getRegion(2).playerName = "player2"
+
+        then:
+        superRegion.ownedByPlayer() == null
+
+        when:
+        board.getRegion(2).playerName = "player1"
+
+        then:
+        superRegion.ownedByPlayer() == "player1"
+        board.mapCopy.getSuperRegion(1).ownedByPlayer() == "player1"
+    }
+
+    def "the frontier follows owner changes"() {
+        given:
+        Frontier frontier = board.getFrontier("player1", "player2")
+        (1..5).each { board.getRegion(it).playerName = "player1" }
+
+        expect:
+        frontier.ownedRegions*.id == [1, 2, 3, 4, 5]
+        frontier.borderRegions*.id == [5]
+        frontier.enemyBorderRegions.empty
+        frontier.attackableRegions*.id == [6]
+
+        when:
+        board.getRegion(6).playerName = "player2"
+        board.getRegion(3).playerName = "player2"
+
+        then:
+        frontier.borderRegions*.id == [2, 4, 5]
+        frontier.enemyBorderRegions*.id == [2, 4, 5]
+        frontier.attackableRegions*.id == [3, 6]
+        frontier.bordersEnemy(board.getRegion(2))
+        !frontier.isBorder(board.getRegion(1))
+    }
+
+    def "ownership masks answer questions about super regions"() {
+        given:
+        SuperRegion superRegion = board.getSuperRegion(2)
+        superRegion.subRegions.each { it.playerName = "player1" }
+        board.getRegion(2).playerName = "player2"
+
+        expect:
+        superRegion.regionMask.cardinality() == 20
+        board.ownsSuperRegion("player1", superRegion)
+        !board.ownsSuperRegion("player2", superRegion)
+        !board.ownsSuperRegion("player1", board.getSuperRegion(1))
+        board.getOwnerMask("player2").toString() == "[2]"
+
+        when:
+        board.getRegion(3).playerName = "neutral"
+
+        then:
+        !board.ownsSuperRegion("player1", superRegion)
+        superRegion.regionMask.nextSetBitAndNot(board.getOwnerMask("player1"), 0) == 3
+    }
+
+    def "snapshots change without touching the board or each other"() {
+        given:
+        board.getRegion(7).armies = 4
+        BoardSnapshot before = BoardSnapshot.of(board)
+
+        when:
+        BoardSnapshot after = before.addArmies(7, 3).withPlayerName(8, "player1")
+
+        then:
+        after.getArmies(7) == 7
+        after.ownedByPlayer(8, "player1")
+        before.getArmies(7) == 4
+        before.getPlayerName(8) == "unknown"
+        board.getRegion(7).armies == 4
+        after.graph.is(before.graph)
+        BoardSnapshot.of(board.mapCopy).getArmies(7) == 4
+    }
+
+    def "connections added between reads of the graph are all kept"() {
+        given:
+        def graph = board.graph
+
+        when:
+        board.addNeighbor(2, 1)
+
+        then: "a known connection leaves the graph as it is"
+        board.graph.is(graph)
+
+        when:
+        board.addNeighbor(1, 3)
+        boolean first = board.getRegion(1).isNeighbor(board.getRegion(3))
+        board.addNeighbor(1, 5)
+
+        then:
+        first
+        board.getRegion(1).neighbors*.id == [2, 3, 5]
+        board.graph.edgeCount == 39 + 2
+    }
+}
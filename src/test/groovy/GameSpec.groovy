@@ -0,0 +1,38 @@
+import bot.BotStarter
+import engine.Game
+import engine.GameMap
+import engine.GameResult
+import engine.GameSettings
+import engine.MapGenerator
+import spock.lang.Specification
+
+class GameSpec extends Specification {
+
+    def "a map survives the round trip through setup_map commands"() {
+        given:
+        GameMap map = new MapGenerator(7).generate(42)
+
+        when:
+        GameMap parsed = GameMap.parse(map.setupCommands().collect { it.join(" ") }.join("\n"))
+
+        then:
+        parsed.regionIds == map.regionIds
+        parsed.graph.edgeCount == map.graph.edgeCount
+        map.regionIds.every { parsed.getSuperRegion(it) == map.getSuperRegion(it) }
+        map.regionIds.every { parsed.isWasteland(it) == map.isWasteland(it) }
+    }
+
+    def "a game between two bots ends with a result"() {
+        given:
+        GameMap map = new MapGenerator(3).generate(42)
+
+        when:
+        GameResult result = new Game(map, new BotStarter(), new BotStarter(), new GameSettings(), 3).play()
+
+        then:
+        result.rounds > 0
+        result.rounds <= 100
+        result.getRoundNanos(Game.PLAYER_1).length == result.rounds
+        result.winner == GameResult.DRAW || result.getRegions(result.winner) >= result.getRegions(3 - result.winner)
+    }
+}
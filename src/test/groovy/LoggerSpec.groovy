@@ -0,0 +1,51 @@
+import log.LogConfig
+import log.LogLevel
+import log.Logger
+import spock.lang.Specification
+
+class LoggerSpec extends Specification {
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream()
+    Logger logger = new Logger("LoggerSpec", new PrintStream(out, true))
+
+    def cleanup() {
+        LogConfig.instance.setAllLevels(LogLevel.INFO)
+    }
+
+    def "suppliers are only called for enabled levels"() {
+        given:
+        LogConfig.instance.setLoggerLevel("LoggerSpec", LogLevel.INFO)
+        int calls = 0
+
+        when:
+        logger.debug({ calls++; "debug" })
+        logger.info({ calls++; "info" })
+
+        then:
+        calls == 1
+        out.toString().contains("INFO LoggerSpec : info")
+        !out.toString().contains("debug")
+    }
+
+    def "levels are read from properties and update existing loggers"() {
+        given:
+        Properties properties = new Properties()
+        properties.setProperty("log.level", "WARN")
+        properties.setProperty("log.level.LoggerSpec", "trace")
+
+        when:
+        LogConfig.instance.configure(properties)
+
+        then:
+        logger.traceEnabled
+        LogConfig.instance.getLoggerLevel("SomeOtherLogger") == LogLevel.WARN
+
+        when:
+        LogConfig.instance.setAllLevels(LogLevel.OFF)
+        logger.error("not written")
+
+        then:
+        !logger.isEnabled(LogLevel.ERROR)
+        out.size() == 0
+    }
+}
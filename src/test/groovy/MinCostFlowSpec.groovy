@@ -0,0 +1,52 @@
+import map.MinCostFlow
+import spock.lang.Specification
+
+class MinCostFlowSpec extends Specification {
+
+    def "flow takes the cheapest paths until they are full"() {
+        given:
+        MinCostFlow network = new MinCostFlow(4)
+        int cheap = network.addEdge(0, 1, 2, 1)
+        int expensive = network.addEdge(0, 2, 5, 3)
+        network.addEdge(1, 3, 5, 1)
+        network.addEdge(2, 3, 5, 1)
+
+        when:
+        int flow = network.solve(0, 3, 4)
+
+        then:
+        flow == 4
+        network.getFlow(cheap) == 2
+        network.getFlow(expensive) == 2
+        network.totalCost == 2 * 2 + 2 * 4
+    }
+
+    def "flow already sent is rerouted when that is cheaper overall"() {
+        given: "the shortest path 0-1-2-3 blocks both disjoint paths 0-1-3 and 0-2-3"
+        MinCostFlow network = new MinCostFlow(4)
+        network.addEdge(0, 1, 1, 1)
+        network.addEdge(0, 2, 1, 2)
+        int middle = network.addEdge(1, 2, 1, 0)
+        network.addEdge(1, 3, 1, 2)
+        network.addEdge(2, 3, 1, 1)
+
+        when:
+        int flow = network.solve(0, 3, 10)
+
+        then:
+        flow == 2
+        network.getFlow(middle) == 0
+        network.totalCost == 3 + 3
+    }
+
+    def "flow is limited by what the sink can be reached with"() {
+        given:
+        MinCostFlow network = new MinCostFlow(3)
+        network.addEdge(0, 1, 5, 0)
+        network.addEdge(1, 2, 3, 2)
+
+        expect:
+        network.solve(0, 2, 10) == 3
+        network.totalCost == 6
+    }
+}
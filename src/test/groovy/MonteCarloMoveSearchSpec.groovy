@@ -0,0 +1,85 @@
+import bot.BotParameters
+import bot.BotStarter
+import bot.BotState
+import bot.CombatModel
+import bot.Deadline
+import bot.Settings
+import log.Appender
+import log.LogConfig
+import log.LogLevel
+import log.StreamAppender
+import map.GameBoard
+import map.Region
+import map.SuperRegion
+import search.MonteCarloMoveSearch
+import search.SearchState
+import search.StateEvaluator
+import spock.lang.Specification
+
+class MonteCarloMoveSearchSpec extends Specification {
+
+    GameBoard board = new GameBoard()
+    CombatModel combatModel = new CombatModel(Settings.COMBAT_TABLE_MAX_ARMIES, Settings.ATTACK_WIN_PROBABILITY)
+    MonteCarloMoveSearch search = new MonteCarloMoveSearch(combatModel, new StateEvaluator(), BotParameters.DEFAULT, 2)
+    Appender appender = LogConfig.instance.appender
+
+    def setup() {
+        board.add(new SuperRegion(1, 3))
+        board.add(new SuperRegion(2, 2))
+        board.add(new Region(1, board.getSuperRegion(1), "player1", 10))
+        board.add(new Region(2, board.getSuperRegion(1), "neutral", 2))
+        board.add(new Region(3, board.getSuperRegion(2), "player2", 4))
+        board.add(new Region(4, board.getSuperRegion(2), "player1", 6))
+        (1..3).each { board.getRegion(it).addNeighbor(board.getRegion(it + 1)) }
+    }
+
+    def cleanup() {
+        search.shutdown()
+        LogConfig.instance.appender = appender
+        LogConfig.instance.setAllLevels(LogLevel.INFO)
+    }
+
+    def "the search of the asked for round reuses the pondered choice"() {
+        given:
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+        LogConfig.instance.appender = new StreamAppender(new PrintStream(out, true))
+        LogConfig.instance.setLoggerLevel("MonteCarloMoveSearch", LogLevel.DEBUG)
+        SearchState root = SearchState.fromBoard(board, "player1", "player2", BotParameters.DEFAULT)
+
+        when:
+        search.ponder(root, [], Deadline.in(1000))
+        def moves = search.improve(root, board, "player1", [], Deadline.in(50))
+
+        then:
+        out.toString().contains("Pondered 2 sources")
+        out.toString().contains("Using remembered choice")
+        moves != null
+    }
+
+    def "stopPondering returns soon after the placements were answered"() {
+        given:
+        BotState state = new BotState()
+        state.updateSettings("your_bot", "settings your_bot player1".split(" "))
+        state.updateSettings("opponent_bot", "settings opponent_bot player2".split(" "))
+        state.updateSettings("starting_armies", "settings starting_armies 5".split(" "))
+        state.setupMap("setup_map super_regions 1 3 2 2".split(" "))
+        state.setupMap("setup_map regions 1 1 2 1 3 2 4 2".split(" "))
+        state.setupMap("setup_map neighbors 1 2 2 3 3 4".split(" "))
+        state.updateMap("update_map 1 player1 10 2 neutral 2 3 player2 4 4 player1 6".split(" "))
+        BotStarter bot = new BotStarter()
+        bot.setPondering(true)
+
+        when:
+        bot.getPlaceArmiesMoves(state, 10000L)
+        sleep(200)
+        long start = System.nanoTime()
+        bot.stopPondering()
+        long stopMillis = (System.nanoTime() - start) / 1000000
+
+        then:
+        stopMillis < 1000
+
+        cleanup:
+        bot.close()
+    }
+}
@@ -0,0 +1,68 @@
+import bot.BotParameters
+import bot.BotState
+import bot.CombatModel
+import bot.Deadline
+import bot.PlacementSolver
+import bot.RoundPlan
+import bot.Settings
+import spock.lang.Specification
+
+class PlacementSolverSpec extends Specification {
+
+    BotState state = new BotState()
+    CombatModel combatModel = new CombatModel(Settings.COMBAT_TABLE_MAX_ARMIES, Settings.ATTACK_WIN_PROBABILITY)
+
+    def setup() {
+        state.updateSettings("your_bot", "settings your_bot player1".split(" "))
+        state.updateSettings("opponent_bot", "settings opponent_bot player2".split(" "))
+        state.updateSettings("starting_armies", "settings starting_armies 5".split(" "))
+        state.setupMap("setup_map super_regions 1 3 2 2".split(" "))
+        state.setupMap("setup_map regions 1 1 2 1 3 2 4 2".split(" "))
+        state.setupMap("setup_map neighbors 1 2 2 3 3 4".split(" "))
+    }
+
+    def "all starting armies are placed and the neighbor is attacked"() {
+        given:
+        state.updateMap("update_map 1 player1 2 2 neutral 2".split(" "))
+
+        when:
+        RoundPlan plan = solver().solve(Deadline.in(1000))
+
+        then:
+        plan.placeArmiesMoves.sum { it.armies } == 5
+        plan.attackMoves.size() == 1
+        plan.attackMoves[0].fromRegion.id == 1
+        plan.attackMoves[0].toRegion.id == 2
+        plan.attackMoves[0].armies < 2 + 5
+    }
+
+    def "targets that can't be taken get no attack"() {
+        given:
+        state.updateMap("update_map 1 player1 1 2 player2 30".split(" "))
+
+        when:
+        RoundPlan plan = solver().solve(Deadline.in(1000))
+
+        then:
+        plan.placeArmiesMoves*.region*.id == [1]
+        plan.placeArmiesMoves[0].armies == 5
+        plan.attackMoves.isEmpty()
+    }
+
+    def "a plan is only replaced by a better one"() {
+        given:
+        state.updateMap("update_map 1 player1 2 2 neutral 2".split(" "))
+        PlacementSolver solver = solver()
+        RoundPlan solution = solver.solve(Deadline.in(1000))
+        RoundPlan nothing = new RoundPlan([], [])
+
+        expect:
+        solver.getValue(solution) > solver.getValue(nothing)
+        solver.improve(nothing, Deadline.in(1000)) != null
+        solver.improve(solution, Deadline.in(1000)) == null
+    }
+
+    def solver() {
+        new PlacementSolver(state, BotParameters.DEFAULT, combatModel, [:])
+    }
+}
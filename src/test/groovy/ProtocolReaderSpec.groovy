@@ -0,0 +1,103 @@
+import bot.BotState
+import bot.ProtocolReader
+import spock.lang.Specification
+
+class ProtocolReaderSpec extends Specification {
+
+    private static ProtocolReader reader(String text) {
+        new ProtocolReader(new ByteArrayInputStream(text.getBytes("US-ASCII")))
+    }
+
+    def "blank lines are skipped and tokens are read in order"() {
+        given:
+        ProtocolReader reader = reader("\n  \r\nsetup_map  neighbors 1 2,3,4 2 3\r\n")
+
+        when:
+        reader.nextLine()
+
+        then:
+        reader.nextTokenIs("setup_map")
+        !reader.nextTokenIs("regions")
+        reader.nextToken() == "neighbors"
+        reader.nextInt() == 1
+        reader.nextInt() == 2
+        reader.hasNextListElement()
+        reader.nextInt() == 3
+        reader.hasNextListElement()
+        reader.nextInt() == 4
+        !reader.hasNextListElement()
+        reader.nextInt() == 2
+        reader.nextInt() == 3
+        !reader.hasNextToken()
+        !reader.nextLine()
+    }
+
+    def "repeated words are returned as the same String"() {
+        given:
+        ProtocolReader reader = reader("update_map 1 player1 2 2 player1 5")
+        reader.nextLine()
+        reader.skipToken()
+        reader.nextInt()
+        String first = reader.nextToken()
+        reader.nextInt()
+        reader.nextInt()
+
+        expect:
+        reader.nextToken().is(first)
+    }
+
+    def "a malformed number is skipped"() {
+        given:
+        ProtocolReader reader = reader("go place_armies 1x0 10000")
+        reader.nextLine()
+        reader.skipToken()
+        reader.skipToken()
+
+        when:
+        reader.nextInt()
+
+        then:
+        thrown(NumberFormatException)
+        reader.nextLong() == 10000L
+    }
+
+    def "a bad neighbor list element skips the rest of its list"() {
+        given:
+        BotState state = new BotState()
+        state.setupMap("setup_map super_regions 1 1".split(" "))
+        state.setupMap("setup_map regions 1 1 2 1 3 1".split(" "))
+        ProtocolReader reader = reader("setup_map neighbors 1 2,99,3 2 3")
+        reader.nextLine()
+        reader.skipToken()
+
+        when:
+        state.setupMap(reader)
+
+        then:
+        !reader.hasNextToken()
+        state.fullGameBoard.getRegion(1).neighbors*.id == [2]
+        state.fullGameBoard.getRegion(2).neighbors*.id.sort() == [1, 3]
+    }
+
+    def "a malformed list element can be skipped up to the next token"() {
+        given:
+        ProtocolReader reader = reader("1 2,x,3 4")
+        reader.nextLine()
+        reader.nextInt()
+        reader.nextInt()
+        reader.hasNextListElement()
+
+        when:
+        reader.nextInt()
+
+        then:
+        thrown(NumberFormatException)
+
+        when:
+        reader.skipToTokenEnd()
+
+        then:
+        reader.nextInt() == 4
+        !reader.hasNextToken()
+    }
+}
@@ -0,0 +1,37 @@
+import map.RegionGraph
+import spock.lang.Specification
+
+class RegionGraphSpec extends Specification {
+
+    def "connections are undirected, sorted and without duplicates"() {
+        when:
+        RegionGraph graph = new RegionGraph.Builder()
+                .addEdge(3, 1).addEdge(1, 2).addEdge(2, 1).addEdge(1, 1).addEdge(5, 3)
+                .build()
+
+        then:
+        neighbors(graph, 1) == [2, 3]
+        neighbors(graph, 3) == [1, 5]
+        neighbors(graph, 4) == []
+        neighbors(graph, 99) == []
+        graph.isNeighbor(5, 3)
+        !graph.isNeighbor(5, 1)
+        graph.edgeCount == 3
+    }
+
+    def "a builder from a graph keeps its connections"() {
+        given:
+        RegionGraph graph = new RegionGraph.Builder().addEdge(1, 2).build()
+
+        when:
+        RegionGraph extended = graph.toBuilder().addEdge(2, 3).build()
+
+        then:
+        neighbors(extended, 2) == [1, 3]
+        neighbors(graph, 2) == [1]
+    }
+
+    private static List<Integer> neighbors(RegionGraph graph, int id) {
+        (graph.neighborStart(id)..<graph.neighborEnd(id)).collect { graph.neighborAt(it) }
+    }
+}
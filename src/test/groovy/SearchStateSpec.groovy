@@ -0,0 +1,113 @@
+import bot.BotParameters
+import map.GameBoard
+import map.Region
+import map.SuperRegion
+import search.SearchState
+import spock.lang.Specification
+
+class SearchStateSpec extends Specification {
+
+    GameBoard board = new GameBoard()
+
+    def setup() {
+        board.add(new SuperRegion(1, 3))
+        board.add(new SuperRegion(2, 2))
+        board.add(new Region(1, board.getSuperRegion(1), "player1", 4))
+        board.add(new Region(2, board.getSuperRegion(1), "player1", 1))
+        board.add(new Region(3, board.getSuperRegion(2), "player2", 2))
+        board.add(new Region(4, board.getSuperRegion(2), "neutral", 2))
+        (1..3).each { board.getRegion(it).addNeighbor(board.getRegion(it + 1)) }
+    }
+
+    def "owners and incomes are copied from the board"() {
+        when:
+        SearchState state = SearchState.fromBoard(board, "player1", "player2", BotParameters.DEFAULT)
+
+        then:
+        state.getOwner(1) == SearchState.ME
+        state.getOwner(3) == SearchState.ENEMY
+        state.getOwner(4) == SearchState.NEUTRAL
+        state.getArmies(1) == 4
+        state.income(SearchState.ME) == SearchState.BASE_INCOME + 3
+        state.income(SearchState.ENEMY) == SearchState.BASE_INCOME
+    }
+
+    def "copies are independent and keep the SuperRegion counts"() {
+        given:
+        SearchState state = SearchState.fromBoard(board, "player1", "player2", BotParameters.DEFAULT)
+        SearchState copy = state.copy()
+
+        when:
+        copy.setOwner(4, SearchState.ENEMY)
+
+        then:
+        copy.income(SearchState.ENEMY) == SearchState.BASE_INCOME + 2
+        state.income(SearchState.ENEMY) == SearchState.BASE_INCOME
+        state.getOwner(4) == SearchState.NEUTRAL
+    }
+
+    def "moves are applied in place and taken back with undo"() {
+        given:
+        SearchState state = SearchState.fromBoard(board, "player1", "player2", BotParameters.DEFAULT)
+
+        when:
+        state.attackTransferExpected(SearchState.ME, 1, 2, 5)
+        boolean taken = state.attackTransferExpected(SearchState.ME, 2, 3, 3)
+
+        then:
+        taken
+        state.getArmies(1) == 1
+        state.getArmies(2) == 1
+        state.getOwner(3) == SearchState.ME
+        state.getArmies(3) == 2
+        state.getOwnedInSuperRegion(SearchState.ENEMY, 2) == 0
+        state.depth == 2
+
+        when:
+        state.undo()
+
+        then:
+        state.getOwner(3) == SearchState.ENEMY
+        state.getArmies(3) == 2
+        state.getArmies(2) == 4
+        state.getOwnedInSuperRegion(SearchState.ENEMY, 2) == 1
+
+        when:
+        state.place(SearchState.ME, 1, 3)
+        state.undoTo(0)
+
+        then:
+        state.getArmies(1) == 4
+        state.getArmies(2) == 1
+        state.depth == 0
+    }
+
+    def "there is nothing to undo on a new state"() {
+        when:
+        SearchState.fromBoard(board, "player1", "player2", BotParameters.DEFAULT).undo()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "equal positions have equal hashes whatever led to them"() {
+        given:
+        SearchState state = SearchState.fromBoard(board, "player1", "player2", BotParameters.DEFAULT)
+        long start = state.hash
+
+        when:
+        state.place(SearchState.ME, 1, 2)
+        state.place(SearchState.ME, 2, 1)
+        long placed = state.hash
+        state.undoTo(0)
+        SearchState other = state.copy()
+        other.place(SearchState.ME, 2, 1)
+        other.place(SearchState.ME, 1, 2)
+
+        then:
+        state.hash == start
+        other.hash == placed
+        placed != start
+        SearchState.fromBoard(board, "player1", "player2", BotParameters.DEFAULT).hash == start
+    }
+}
@@ -0,0 +1,37 @@
+import bot.BotParameters
+import bot.Settings
+import engine.Tournament
+import spock.lang.Specification
+
+class TournamentSpec extends Specification {
+
+    def "parameters are changed by name on a copy"() {
+        when:
+        BotParameters changed = BotParameters.DEFAULT.with("extraEffortFactor", 5)
+
+        then:
+        changed.extraEffortFactor == 5
+        changed.enemyOwnershipFactor == BotParameters.DEFAULT.enemyOwnershipFactor
+        BotParameters.DEFAULT.extraEffortFactor == Settings.EXTRA_EFFORT_FACTOR
+    }
+
+    def "unknown parameters are rejected"() {
+        when:
+        BotParameters.DEFAULT.with("noSuchParameter", 1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "the Wilson interval contains the win rate and narrows with more games"() {
+        when:
+        double[] few = Tournament.wilsonInterval(6, 10, 1.96)
+        double[] many = Tournament.wilsonInterval(600, 1000, 1.96)
+
+        then:
+        few[0] < 0.6 && 0.6 < few[1]
+        many[0] < 0.6 && 0.6 < many[1]
+        many[1] - many[0] < few[1] - few[0]
+        Math.abs(many[0] - 0.5693) < 0.001
+    }
+}
@@ -0,0 +1,93 @@
+import bot.Bot
+import bot.BotState
+import bot.StreamingBotParser
+import map.Region
+import move.AttackTransferMove
+import move.PlaceArmiesMove
+import spock.lang.Specification
+import trace.TraceFormat
+import trace.TraceReader
+import trace.TraceRecorder
+import trace.TraceReplay
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class TraceSpec extends Specification {
+
+    Path file = Files.createTempFile("spec", ".trace")
+
+    def cleanup() {
+        Files.deleteIfExists(file)
+    }
+
+    def "records are read back as they were written"() {
+        given:
+        byte[] longLine = ("x" * 100000).bytes
+
+        when:
+        new TraceRecorder(file).withCloseable {
+            it.recordCommand(0, "settings your_bot player1".bytes, 25)
+            it.recordAnswer(TraceFormat.ATTACK_TRANSFER, 300, Long.MAX_VALUE, longLine, longLine.length)
+        }
+        TraceReader reader = new TraceReader(file)
+
+        then:
+        reader.next()
+        reader.isCommand()
+        reader.round == 0
+        reader.line == "settings your_bot player1"
+        reader.next()
+        reader.type == TraceFormat.ATTACK_TRANSFER
+        reader.round == 300
+        reader.nanos == Long.MAX_VALUE
+        reader.line == "x" * 100000
+        !reader.next()
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "files without the header are rejected"() {
+        given:
+        Files.write(file, "not a trace".bytes)
+
+        when:
+        new TraceReader(file)
+
+        then:
+        thrown(IOException)
+    }
+
+    def "a replay gives the recorded answers"() {
+        given:
+        String commands = "settings your_bot player1\ngo place_armies 2000\ngo attack/transfer 2000\n"
+        new TraceRecorder(file).withCloseable {
+            StreamingBotParser parser = new StreamingBotParser(new PassingBot(),
+                    new ByteArrayInputStream(commands.bytes), new ByteArrayOutputStream())
+            parser.setRecorder(it)
+            parser.run()
+        }
+        Path replayed = Files.createTempFile("replay", ".trace")
+
+        when:
+        TraceReplay.replay(file, new PassingBot(), replayed)
+        TraceReplay.Comparison comparison = TraceReplay.compare(file, replayed)
+
+        then:
+        comparison.answers == 2
+        comparison.differences == 0
+        comparison.missing == 0
+
+        cleanup:
+        Files.deleteIfExists(replayed)
+    }
+
+    static class PassingBot implements Bot {
+        Region getStartingRegion(BotState state, Long timeOut) { null }
+
+        List<PlaceArmiesMove> getPlaceArmiesMoves(BotState state, Long timeOut) { [] }
+
+        List<AttackTransferMove> getAttackTransferMoves(BotState state, Long timeOut) { [] }
+    }
+}
@@ -0,0 +1,67 @@
+import search.TranspositionTable
+import spock.lang.Specification
+
+class TranspositionTableSpec extends Specification {
+
+    TranspositionTable table = new TranspositionTable(4)
+
+    def "stored entries are found by their hash"() {
+        when:
+        table.store(12345L, 0.25d, 7, 3)
+        long data = table.probe(12345L)
+
+        then:
+        data != TranspositionTable.MISS
+        TranspositionTable.value(data) == 0.25d
+        TranspositionTable.depth(data) == 7
+        TranspositionTable.move(data) == 3
+        table.probe(12345L + 16) == TranspositionTable.MISS
+    }
+
+    def "deeper entries of the current generation are kept"() {
+        given:
+        long other = 12345L + (1L << 40) //same slot, different hash
+
+        when:
+        table.store(12345L, 1, 10, 1)
+        table.store(other, 2, 5, 2)
+
+        then:
+        table.probe(other) == TranspositionTable.MISS
+        TranspositionTable.move(table.probe(12345L)) == 1
+
+        when:
+        table.newGeneration()
+        table.store(other, 2, 5, 2)
+
+        then:
+        TranspositionTable.move(table.probe(other)) == 2
+        table.probe(12345L) == TranspositionTable.MISS
+    }
+
+    def "concurrent writers never produce entries for the wrong hash"() {
+        given:
+        List<Thread> threads = (1..4).collect { int t ->
+            new Thread({
+                for (long i = 0; i < 200000; i++) {
+                    long hash = TranspositionTable.mix(i % 64)
+                    table.store(hash, (double) (hash % 1000), 0, (int) (hash & 0xff))
+                }
+            })
+        }
+
+        when:
+        threads*.start()
+        boolean consistent = true
+        for (long i = 0; i < 200000; i++) {
+            long hash = TranspositionTable.mix(i % 64)
+            long data = table.probe(hash)
+            if (data != TranspositionTable.MISS && TranspositionTable.move(data) != (int) (hash & 0xff))
+                consistent = false
+        }
+        threads*.join()
+
+        then:
+        consistent
+    }
+}
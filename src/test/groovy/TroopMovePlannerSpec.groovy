@@ -0,0 +1,41 @@
+import bot.BotState
+import bot.TroopMovePlanner
+import move.AttackTransferMove
+import spock.lang.Specification
+
+class TroopMovePlannerSpec extends Specification {
+
+    BotState state = new BotState()
+
+    def setup() {
+        state.updateSettings("your_bot", "settings your_bot player1".split(" "))
+        state.updateSettings("opponent_bot", "settings opponent_bot player2".split(" "))
+        state.setupMap("setup_map super_regions 1 1".split(" "))
+    }
+
+    def "a threatened border region is filled over a detour before the closest one gets the rest"() {
+        given: "1 is next to 2, which faces a single enemy army, and two hops from 4, which faces ten"
+        state.setupMap("setup_map regions 1 1 2 1 3 1 4 1 5 1 6 1".split(" "))
+        state.setupMap("setup_map neighbors 1 2,3 2 5 3 4 4 6".split(" "))
+        state.updateMap("update_map 1 player1 10 2 player1 3 3 player1 1 4 player1 2 5 player2 1 6 player2 10".split(" "))
+
+        expect:
+        moves() == ["1 2 1", "1 3 8"]
+    }
+
+    def "without an enemy armies go to the border and armies that can't reach one stay"() {
+        given: "7 and 8 are mine and connected to nothing else"
+        state.setupMap("setup_map regions 1 1 2 1 3 1 7 1 8 1".split(" "))
+        state.setupMap("setup_map neighbors 1 2 2 3 7 8".split(" "))
+        state.updateMap("update_map 1 player1 10 2 player1 1 3 neutral 2 7 player1 5 8 player1 1".split(" "))
+
+        expect:
+        moves() == ["1 2 9"]
+    }
+
+    def moves() {
+        new TroopMovePlanner(state).getTransferMoves().collect { AttackTransferMove move ->
+            "${move.fromRegion.id} ${move.toRegion.id} ${move.armies}".toString()
+        }
+    }
+}